@@ -0,0 +1,99 @@
+#!/usr/bin/env sh
+# Sale query latency vs. history size: unpartitioned table (before) vs. monthly partitions (after).
+# Builds synthetic sale tables with 1..N years of history in a scratch schema, runs the repository's
+# date-range, monthly-revenue and latest-sales query shapes, and records the best EXPLAIN ANALYZE
+# execution time of each. Results are appended to target/partition-benchmark.csv.
+# The scratch schema is dropped at the end; application tables are not touched.
+#
+# Usage: PGDATABASE=car_dealer scripts/partition-benchmark.sh [max years] [rows per month] [runs]
+
+set -e
+
+MAX_YEARS=${1:-8}
+ROWS_PER_MONTH=${2:-50000}
+RUNS=${3:-5}
+cd "$(dirname "$0")/.."
+
+RESULTS=target/partition-benchmark.csv
+SCHEMA=partition_bench
+PSQL="psql -X -q -t -A -v ON_ERROR_STOP=1"
+
+mkdir -p target
+[ -f "$RESULTS" ] || echo "timestamp,table,years,rows,query,best_ms" > "$RESULTS"
+NOW=$(date -u +%Y-%m-%dT%H:%M:%SZ)
+
+# Creates <schema>.sale_plain and <schema>.sale_part holding the given number of years up to this month
+build() {
+  $PSQL <<SQL
+DROP SCHEMA IF EXISTS $SCHEMA CASCADE;
+CREATE SCHEMA $SCHEMA;
+SET search_path = $SCHEMA;
+
+CREATE TABLE sale_plain (
+    id SERIAL PRIMARY KEY, car_id INT NOT NULL, customer_id INT NOT NULL,
+    sale_date DATE NOT NULL, sale_price DECIMAL(10, 2) NOT NULL);
+CREATE TABLE sale_part (
+    id SERIAL, car_id INT NOT NULL, customer_id INT NOT NULL,
+    sale_date DATE NOT NULL, sale_price DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (id, sale_date)) PARTITION BY RANGE (sale_date);
+
+DO \$\$
+DECLARE
+    month_start DATE := date_trunc('month', CURRENT_DATE - INTERVAL '$1 years')::date;
+BEGIN
+    WHILE month_start <= date_trunc('month', CURRENT_DATE) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF sale_part FOR VALUES FROM (%L) TO (%L)',
+                       'sale_part_' || to_char(month_start, 'YYYY_MM'), month_start,
+                       (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END;
+\$\$;
+
+INSERT INTO sale_plain (car_id, customer_id, sale_date, sale_price)
+SELECT 1 + (random() * 999)::int, 1 + (random() * 999)::int,
+       CURRENT_DATE - (random() * ($1 * 365 - 1))::int, (10000 + random() * 40000)::numeric(10, 2)
+FROM generate_series(1, $1 * 12 * $ROWS_PER_MONTH);
+INSERT INTO sale_part (car_id, customer_id, sale_date, sale_price)
+SELECT car_id, customer_id, sale_date, sale_price FROM sale_plain;
+
+CREATE INDEX ON sale_plain (sale_date);
+CREATE INDEX ON sale_part (sale_date);
+ANALYZE sale_plain;
+ANALYZE sale_part;
+SQL
+}
+
+# Prints the best execution time in ms of a query over $RUNS runs
+best_ms() {
+  best=""
+  i=1
+  while [ "$i" -le "$RUNS" ]; do
+    ms=$($PSQL -c "SET search_path = $SCHEMA; EXPLAIN (ANALYZE, COSTS OFF) $1" \
+      | sed -n 's/^Execution Time: \([0-9.]*\) ms$/\1/p')
+    if [ -z "$best" ] || [ "$(awk -v a="$ms" -v b="$best" 'BEGIN { print (a < b) }')" = 1 ]; then
+      best=$ms
+    fi
+    i=$((i + 1))
+  done
+  echo "$best"
+}
+
+years=1
+while [ "$years" -le "$MAX_YEARS" ]; do
+  echo "Building $years year(s) of history..."
+  build "$years"
+  rows=$((years * 12 * ROWS_PER_MONTH))
+  for table in sale_plain sale_part; do
+    # Same shapes as SaleRepository: findBySaleDateBetween, getSalesRevenueByMonthBetween, findTop5ByOrderBySaleDateDesc
+    echo "$NOW,$table,$years,$rows,date_range,$(best_ms "SELECT * FROM $table WHERE sale_date BETWEEN CURRENT_DATE - 30 AND CURRENT_DATE ORDER BY sale_date DESC LIMIT 20")" >> "$RESULTS"
+    echo "$NOW,$table,$years,$rows,revenue_by_month,$(best_ms "SELECT date_trunc('month', sale_date), COUNT(*), SUM(sale_price) FROM $table WHERE sale_date >= date_trunc('year', CURRENT_DATE)::date AND sale_date < (date_trunc('year', CURRENT_DATE) + INTERVAL '1 year')::date GROUP BY 1 ORDER BY 1 DESC")" >> "$RESULTS"
+    echo "$NOW,$table,$years,$rows,latest,$(best_ms "SELECT * FROM $table ORDER BY sale_date DESC LIMIT 5")" >> "$RESULTS"
+  done
+  years=$((years * 2))
+done
+
+$PSQL -c "DROP SCHEMA $SCHEMA CASCADE"
+
+echo "Partition benchmark results appended to $RESULTS:"
+grep "^$NOW" "$RESULTS"
@@ -0,0 +1,58 @@
+#!/usr/bin/env sh
+# Startup-time benchmark: plain fat jar (before) vs. AOT + CDS on an unpacked classpath (after).
+# Each run refreshes the context and exits, so no database or OpenAI key is needed.
+# Results are appended to target/startup-benchmark.csv.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+
+set -e
+
+RUNS=${1:-5}
+cd "$(dirname "$0")/.."
+
+MAIN_CLASS=com.example.SQLMLProject.SqlmlProjectApplication
+RESULTS=target/startup-benchmark.csv
+WORK=target/startup-benchmark
+
+# Same offline settings as the Docker training run
+OFFLINE_PROPS="-Dspring.context.exit=onRefresh \
+ -Dspring.datasource.url=jdbc:postgresql://localhost:5432/training \
+ -Dspring.datasource.username=training \
+ -Dspring.datasource.password=training \
+ -Dspring.jpa.hibernate.ddl-auto=none \
+ -Dspring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false \
+ -Dspring.ai.openai.api-key=training \
+ -Dcache.invalidation.enabled=false \
+ -Dsale.partitioning.enabled=false"
+
+mvn -B -q clean package -Paot -DskipTests
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+
+# Unpack and train the CDS archive once
+rm -rf "$WORK" && mkdir -p "$WORK/extracted"
+(cd "$WORK/extracted" && jar -xf "../../../$JAR")
+CP="$WORK/extracted/BOOT-INF/classes:$(ls "$WORK"/extracted/BOOT-INF/lib/*.jar | sort | tr '\n' ':' | sed 's/:$//')"
+java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.aot.enabled=true $OFFLINE_PROPS \
+  -cp "$CP" "$MAIN_CLASS" > /dev/null
+
+# Runs one startup and prints "<wall ms>,<Spring-reported seconds>"
+measure() {
+  start=$(date +%s%N)
+  log=$("$@" 2>&1)
+  end=$(date +%s%N)
+  reported=$(echo "$log" | sed -n 's/.*Started SqlmlProjectApplication in \([0-9.]*\) seconds.*/\1/p')
+  echo "$(( (end - start) / 1000000 )),$reported"
+}
+
+[ -f "$RESULTS" ] || echo "timestamp,mode,run,wall_ms,spring_seconds" > "$RESULTS"
+NOW=$(date -u +%Y-%m-%dT%H:%M:%SZ)
+
+i=1
+while [ "$i" -le "$RUNS" ]; do
+  echo "$NOW,before,$i,$(measure java $OFFLINE_PROPS -jar "$JAR")" >> "$RESULTS"
+  echo "$NOW,after,$i,$(measure java -XX:SharedArchiveFile="$WORK/app.jsa" -Dspring.aot.enabled=true $OFFLINE_PROPS -cp "$CP" "$MAIN_CLASS")" >> "$RESULTS"
+  i=$((i + 1))
+done
+
+echo "Startup results ($RUNS runs per mode) appended to $RESULTS:"
+grep "^$NOW" "$RESULTS"
@@ -0,0 +1,80 @@
+package com.example.SQLMLProject.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration for in-process caches.
+ * Entries are dropped on every node through the cache invalidation bus when the underlying tables change.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DASHBOARD_STATS = "dashboardStats";
+    public static final String CAR_MAKES = "carMakes";
+    public static final String CUSTOMER_CITIES = "customerCities";
+
+    // Hibernate second-level cache regions (sizes and TTLs in application.conf)
+    public static final String CAR_REGION = "car";
+    public static final String CUSTOMER_REGION = "customer";
+    public static final String CAR_QUERIES_REGION = "car-queries";
+    public static final String CUSTOMER_QUERIES_REGION = "customer-queries";
+
+    /**
+     * Caches that must be evicted when a given table changes.
+     */
+    public static final Map<String, List<String>> CACHES_BY_TABLE = Map.of(
+            "car", List.of(DASHBOARD_STATS, CAR_MAKES),
+            "customer", List.of(DASHBOARD_STATS, CUSTOMER_CITIES),
+            "sale", List.of(DASHBOARD_STATS)
+    );
+
+    /**
+     * Hibernate regions that must be evicted when a given table changes outside this node's session factory.
+     */
+    public static final Map<String, List<String>> REGIONS_BY_TABLE = Map.of(
+            "car", List.of(CAR_REGION, CAR_QUERIES_REGION),
+            "customer", List.of(CUSTOMER_REGION, CUSTOMER_QUERIES_REGION)
+    );
+
+    /**
+     * Exposes the hit ratio of each second-level and query cache region as hibernate.cache.hit.ratio.
+     */
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : List.of(CAR_REGION, CUSTOMER_REGION)) {
+                Gauge.builder("hibernate.cache.hit.ratio", statistics,
+                                stats -> hitRatio(stats.getDomainDataRegionStatistics(region)))
+                        .tag("region", region)
+                        .register(registry);
+            }
+            for (String region : List.of(CAR_QUERIES_REGION, CUSTOMER_QUERIES_REGION)) {
+                Gauge.builder("hibernate.cache.hit.ratio", statistics,
+                                stats -> hitRatio(stats.getQueryRegionStatistics(region)))
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        if (statistics == null) {
+            return 0;
+        }
+        long total = statistics.getHitCount() + statistics.getMissCount();
+        return total == 0 ? 0 : (double) statistics.getHitCount() / total;
+    }
+}
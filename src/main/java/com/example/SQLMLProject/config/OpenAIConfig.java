@@ -1,8 +1,13 @@
 package com.example.SQLMLProject.config;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.ResolvableType;
 
 /**
  * Configuration for Spring AI with OpenAI integration.
@@ -11,14 +16,47 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class OpenAIConfig {
 
+    private static final String SPRING_AI_PACKAGE = "org.springframework.ai.";
+
+    /**
+     * Marks every Spring AI bean lazy: the OpenAI chat, embedding, image and audio models (and the API and
+     * HTTP clients they build) are otherwise created eagerly at startup, even though only the ChatClient
+     * uses them. In an AOT build this runs at build time and the flag is kept in the generated definitions.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringAiBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String type = beanTypeName(definition);
+                if (type != null && type.startsWith(SPRING_AI_PACKAGE)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
     /**
      * Creates a ChatClient bean for communicating with OpenAI.
      * The API key is automatically picked up from OPENAI_API_KEY environment variable.
+     * Created lazily on the first NL query so it stays off the startup path.
      *
      * @return ChatClient bean
      */
     @Bean
+    @Lazy
     public ChatClient chatClient(ChatClient.Builder builder) {
         return builder.build();
     }
+
+    /**
+     * Declared type of a bean, read from metadata so no bean class needs to be loaded or created.
+     */
+    private static String beanTypeName(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+            return annotated.getFactoryMethodMetadata().getReturnTypeName();
+        }
+        ResolvableType type = definition.getResolvableType();
+        return type != ResolvableType.NONE ? type.toClass().getName() : definition.getBeanClassName();
+    }
 }
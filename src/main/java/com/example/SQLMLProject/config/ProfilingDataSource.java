@@ -0,0 +1,199 @@
+package com.example.SQLMLProject.config;
+
+import com.example.SQLMLProject.service.SqlProfiler;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * DataSource wrapper that times every JDBC statement and reports it to the {@link SqlProfiler}.
+ * Connections, statements and result sets are JDK proxies; only execute calls, result set iteration
+ * and pool checkout are measured, everything else is passed straight through.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final SqlProfiler profiler;
+    private final boolean countRows;
+
+    public ProfilingDataSource(DataSource target, SqlProfiler profiler, boolean countRows) {
+        super(target);
+        this.profiler = profiler;
+        this.countRows = countRows;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        profiler.recordPoolWait(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        profiler.recordPoolWait(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statementProxy(Statement.class, (Statement) result, null);
+                case "prepareStatement" -> statementProxy(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall" -> statementProxy(CallableStatement.class, (Statement) result, (String) args[0]);
+                default -> result;
+            };
+        }
+
+        private Object statementProxy(Class<? extends Statement> type, Statement statement, String sql) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+        private String lastSql;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            if (!EXECUTE_METHODS.contains(name)) {
+                Object result = ProfilingDataSource.invoke(target, method, args);
+                // A plain Statement's SQL is only passed to execute, so attribute its result set to that call
+                return name.equals("getResultSet")
+                        ? resultSetProxy((ResultSet) result, lastSql != null ? lastSql : sqlFor(args)) : result;
+            }
+
+            String sql = sqlFor(args);
+            lastSql = sql;
+            long start = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            try {
+                result = ProfilingDataSource.invoke(target, method, args);
+                failed = false;
+                return name.equals("executeQuery") ? resultSetProxy((ResultSet) result, sql) : result;
+            } finally {
+                profiler.recordExecution(sql, System.nanoTime() - start, affectedRows(result), failed);
+            }
+        }
+
+        private String sqlFor(Object[] args) {
+            if (preparedSql != null) {
+                return preparedSql;
+            }
+            if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                return sql;
+            }
+            return batchSql != null ? batchSql : "<unknown>";
+        }
+
+        private long affectedRows(Object result) {
+            if (result instanceof Integer count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof Long count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof int[] counts) {
+                long total = 0;
+                for (int count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return 0;
+        }
+
+        private ResultSet resultSetProxy(ResultSet resultSet, String sql) {
+            if (resultSet == null || !countRows) {
+                return resultSet;
+            }
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, sql));
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final String sql;
+        private long rows;
+        private boolean reported;
+
+        private ResultSetHandler(ResultSet target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                boolean hasRow = target.next();
+                if (hasRow) {
+                    rows++;
+                }
+                return hasRow;
+            }
+            if (name.equals("close") && !reported) {
+                reported = true;
+                profiler.recordRows(sql, rows);
+            }
+            return ProfilingDataSource.invoke(target, method, args);
+        }
+    }
+}
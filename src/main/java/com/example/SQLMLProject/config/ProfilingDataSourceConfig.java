@@ -0,0 +1,84 @@
+package com.example.SQLMLProject.config;
+
+import com.example.SQLMLProject.service.SqlProfiler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps the connection pool in a {@link ProfilingDataSource} so every JDBC statement,
+ * whether issued by JPA or JdbcTemplate, is fingerprinted and timed.
+ * sql.profiling.enabled is read when the context starts rather than through a condition, which an AOT
+ * build would evaluate once at build time.
+ */
+@Configuration
+@ImportRuntimeHints(ProfilingDataSourceConfig.ProxyHints.class)
+public class ProfilingDataSourceConfig {
+
+    @Bean
+    public static SqlProfiler sqlProfiler(Environment env) {
+        return new SqlProfiler(
+                env.getProperty("sql.profiling.slow-threshold-ms", Long.class, 500L),
+                env.getProperty("sql.profiling.slow-sample-rate", Double.class, 1.0),
+                env.getProperty("sql.profiling.max-fingerprints", Integer.class, 5000));
+    }
+
+    /**
+     * Wraps DataSource beans after initialization, keeping the pool bean itself reachable through unwrap().
+     */
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<SqlProfiler> profiler,
+                                                                     Environment env) {
+        boolean enabled = env.getProperty("sql.profiling.enabled", Boolean.class, true);
+        boolean countRows = env.getProperty("sql.profiling.count-rows", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource, profiler.getObject(), countRows);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Exposes the connection checkout time seen by the application as sql.pool.wait percentiles.
+     */
+    @Bean
+    public MeterBinder poolWaitMetrics(SqlProfiler profiler) {
+        return registry -> {
+            for (double percentile : new double[]{0.5, 0.95, 0.99}) {
+                Gauge.builder("sql.pool.wait", profiler, p -> p.poolWaitPercentileMs(percentile))
+                        .tag("percentile", String.valueOf(percentile))
+                        .baseUnit("milliseconds")
+                        .register(registry);
+            }
+        };
+    }
+
+    static class ProxyHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.proxies().registerJdkProxy(Connection.class);
+            hints.proxies().registerJdkProxy(Statement.class);
+            hints.proxies().registerJdkProxy(PreparedStatement.class);
+            hints.proxies().registerJdkProxy(CallableStatement.class);
+            hints.proxies().registerJdkProxy(ResultSet.class);
+        }
+    }
+}
@@ -7,15 +7,23 @@ import com.example.SQLMLProject.entity.Sale;
 import com.example.SQLMLProject.repository.CarRepository;
 import com.example.SQLMLProject.repository.CustomerRepository;
 import com.example.SQLMLProject.repository.SaleRepository;
+import com.example.SQLMLProject.service.ClientRateLimiter;
+import com.example.SQLMLProject.service.CopyExportService;
 import com.example.SQLMLProject.service.DashboardService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 
@@ -33,6 +41,15 @@ public class DashboardController {
     private final CarRepository carRepository;
     private final SaleRepository saleRepository;
     private final CustomerRepository customerRepository;
+    private final CopyExportService copyExportService;
+    private final ClientRateLimiter clientRateLimiter;
+    
+    private static final long EXPORT_RETRY_AFTER_SECONDS = 30;
+    
+    private static final String SALES_EXPORT_SQL =
+            "SELECT s.id, s.sale_date, s.sale_price, c.make, c.model, c.year, cu.name AS customer_name, cu.city " +
+            "FROM Sale s JOIN Car c ON s.car_id = c.id JOIN Customer cu ON s.customer_id = cu.id " +
+            "ORDER BY s.sale_date DESC";
     
     /**
      * Get comprehensive dashboard statistics.
@@ -77,21 +94,70 @@ public class DashboardController {
     }
     
     /**
-     * Get all sales with pagination.
+     * Get all sales, newest first, with pagination.
+     * Returns a slice without totals, since counting sales would scan every partition.
      */
     @GetMapping("/sales")
-    public ResponseEntity<Page<Sale>> getSales(
+    public ResponseEntity<Slice<Sale>> getSales(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
         log.info("Fetching sales - page: {}, size: {}", page, size);
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "saleDate"));
-        Page<Sale> sales = saleRepository.findAllByOrderBySaleDateDesc(pageable);
+        Pageable pageable = PageRequest.of(page, size);
+        Slice<Sale> sales = saleRepository.findAllByOrderBySaleDateDescIdDesc(pageable);
         
         return ResponseEntity.ok(sales);
     }
     
+    /**
+     * Export all sales with car and customer details as a file.
+     * Rows are piped from PostgreSQL COPY ... TO STDOUT to the response without being loaded into memory.
+     * Budgeted per client against database time, and limited to a few concurrent exports.
+     */
+    @GetMapping("/sales/export")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = "X-API-Key", required = false) String apiKey,
+            HttpServletRequest httpRequest) {
+        
+        log.info("Exporting sales - format: {}, gzip: {}", format, gzip);
+        
+        CopyExportService.Format exportFormat;
+        try {
+            exportFormat = CopyExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String clientId = clientRateLimiter.resolveClientId(apiKey, httpRequest.getRemoteAddr());
+        long retryAfter = clientRateLimiter.tryAdmitDbOnly(clientId);
+        if (retryAfter > 0) {
+            log.warn("Rate limit exceeded, retry after {}s", retryAfter);
+            return tooManyRequests(retryAfter);
+        }
+        if (!copyExportService.tryAcquireSlot()) {
+            log.warn("Export rejected, too many exports running");
+            return tooManyRequests(EXPORT_RETRY_AFTER_SECONDS);
+        }
+
+        String copySql = copyExportService.buildCopySql(SALES_EXPORT_SQL, exportFormat);
+        StreamingResponseBody body = out -> {
+            try {
+                copyExportService.copyOut(copySql, gzip, out, dbMillis -> clientRateLimiter.recordDbTime(clientId, dbMillis));
+            } finally {
+                copyExportService.releaseSlot();
+            }
+        };
+        
+        String filename = "sales." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .body(body);
+    }
+    
     /**
      * Get all customers with optional filtering and pagination.
      */
@@ -168,4 +234,10 @@ public class DashboardController {
         
         return ResponseEntity.ok(cars);
     }
+    
+    private ResponseEntity<StreamingResponseBody> tooManyRequests(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
 }
@@ -0,0 +1,87 @@
+package com.example.SQLMLProject.controller;
+
+import com.example.SQLMLProject.dto.SqlStatementStats;
+import com.example.SQLMLProject.service.SqlProfiler;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller exposing JDBC profiling data collected by the profiling DataSource.
+ * Responds with 404 when profiling is disabled.
+ */
+@RestController
+@RequestMapping("/api/diagnostics/sql")
+@RequiredArgsConstructor
+@Slf4j
+public class DiagnosticsController {
+
+    private final SqlProfiler sqlProfiler;
+    private final DataSource dataSource;
+
+    @Value("${sql.profiling.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Get the statements that dominate database time.
+     *
+     * @param orderBy totalTime, calls, mean, p99 or rows
+     */
+    @GetMapping("/top")
+    public ResponseEntity<List<SqlStatementStats>> getTopStatements(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "totalTime") String orderBy) {
+        if (!enabled) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(sqlProfiler.top(Math.max(1, Math.min(limit, 500)), orderBy));
+    }
+
+    /**
+     * Get connection pool state and connection wait times.
+     */
+    @GetMapping("/pool")
+    public ResponseEntity<Map<String, Object>> getPoolStats() throws SQLException {
+        if (!enabled) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            if (pool != null) {
+                stats.put("activeConnections", pool.getActiveConnections());
+                stats.put("idleConnections", pool.getIdleConnections());
+                stats.put("totalConnections", pool.getTotalConnections());
+                stats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            }
+        }
+        stats.put("connectionRequests", sqlProfiler.poolWaitCount());
+        stats.put("waitP50Ms", sqlProfiler.poolWaitPercentileMs(0.50));
+        stats.put("waitP95Ms", sqlProfiler.poolWaitPercentileMs(0.95));
+        stats.put("waitP99Ms", sqlProfiler.poolWaitPercentileMs(0.99));
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Clear collected statement statistics.
+     */
+    @DeleteMapping("/top")
+    public ResponseEntity<Void> reset() {
+        if (!enabled) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Resetting SQL statement statistics");
+        sqlProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
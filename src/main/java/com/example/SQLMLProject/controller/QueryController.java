@@ -2,11 +2,19 @@ package com.example.SQLMLProject.controller;
 
 import com.example.SQLMLProject.dto.QueryRequest;
 import com.example.SQLMLProject.dto.QueryResponse;
+import com.example.SQLMLProject.service.ClientRateLimiter;
+import com.example.SQLMLProject.service.CopyExportService;
+import com.example.SQLMLProject.service.FairQueryScheduler;
 import com.example.SQLMLProject.service.QueryService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST Controller for handling natural language to SQL conversion requests.
@@ -18,16 +26,24 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class QueryController {
 
+    private static final long EXPORT_RETRY_AFTER_SECONDS = 30;
+
     private final QueryService queryService;
+    private final ClientRateLimiter clientRateLimiter;
+    private final FairQueryScheduler fairQueryScheduler;
+    private final CopyExportService copyExportService;
 
     /**
      * Converts a natural language question into SQL and executes it.
+     * Requests are budgeted per client (a configured X-API-Key, otherwise the caller's IP) and scheduled fairly across clients.
      *
      * @param request QueryRequest containing the natural language question
      * @return QueryResponse with generated SQL and results
      */
     @PostMapping("/query")
-    public ResponseEntity<QueryResponse> query(@RequestBody QueryRequest request) {
+    public ResponseEntity<QueryResponse> query(@RequestBody QueryRequest request,
+                                               @RequestHeader(value = "X-API-Key", required = false) String apiKey,
+                                               HttpServletRequest httpRequest) {
         log.info("Received query request: {}", request.getQuestion());
 
         if (request.getQuestion() == null || request.getQuestion().trim().isEmpty()) {
@@ -35,8 +51,103 @@ public class QueryController {
                     .body(new QueryResponse(null, null, "Question cannot be empty"));
         }
 
-        QueryResponse response = queryService.processQuery(request);
-        return ResponseEntity.ok(response);
+        String clientId = clientId(apiKey, httpRequest);
+
+        long retryAfter = clientRateLimiter.tryAdmit(clientId);
+        if (retryAfter > 0) {
+            log.warn("Rate limit exceeded, retry after {}s", retryAfter);
+            return tooManyRequests(retryAfter, "Rate limit exceeded, retry later");
+        }
+
+        try {
+            QueryResponse response = fairQueryScheduler.execute(clientId, () -> queryService.processQuery(request, clientId));
+            return ResponseEntity.ok(response);
+        } catch (FairQueryScheduler.QueueFullException e) {
+            log.warn("Query queue rejected request: {}", e.getMessage());
+            clientRateLimiter.refundLlmCall(clientId);
+            return tooManyRequests(1, "Server busy: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a natural language question into SQL and streams the full result as a file.
+     * Rows are piped from PostgreSQL COPY ... TO STDOUT to the response without being loaded into memory.
+     * Exports are budgeted like queries and limited to a few concurrent downloads, each holding a pooled connection.
+     *
+     * @param request QueryRequest containing the natural language question
+     * @param format  csv (with header) or binary (PostgreSQL binary COPY format)
+     * @param gzip    Whether to gzip the file
+     * @return Streamed export, or an error response
+     */
+    @PostMapping("/query/export")
+    public ResponseEntity<?> export(@RequestBody QueryRequest request,
+                                    @RequestParam(defaultValue = "csv") String format,
+                                    @RequestParam(defaultValue = "false") boolean gzip,
+                                    @RequestHeader(value = "X-API-Key", required = false) String apiKey,
+                                    HttpServletRequest httpRequest) {
+        log.info("Received export request: {} (format: {}, gzip: {})", request.getQuestion(), format, gzip);
+
+        if (request.getQuestion() == null || request.getQuestion().trim().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new QueryResponse(null, null, "Question cannot be empty"));
+        }
+
+        CopyExportService.Format exportFormat;
+        try {
+            exportFormat = CopyExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new QueryResponse(null, null, "Unsupported export format: " + format));
+        }
+
+        String clientId = clientId(apiKey, httpRequest);
+        long retryAfter = clientRateLimiter.tryAdmit(clientId);
+        if (retryAfter > 0) {
+            log.warn("Rate limit exceeded, retry after {}s", retryAfter);
+            return tooManyRequests(retryAfter, "Rate limit exceeded, retry later");
+        }
+
+        // Reserve the slot before generating SQL, so a saturated server does not spend LLM calls on rejected exports
+        if (!copyExportService.tryAcquireSlot()) {
+            log.warn("Export rejected, too many exports running");
+            clientRateLimiter.refundLlmCall(clientId);
+            return tooManyRequests(EXPORT_RETRY_AFTER_SECONDS, "Too many exports running, retry later");
+        }
+
+        String sql = null;
+        String copySql;
+        try {
+            sql = queryService.generateExportSql(request, clientId);
+            copySql = copyExportService.buildCopySql(sql, exportFormat);
+        } catch (Exception e) {
+            copyExportService.releaseSlot();
+            log.warn("Export rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new QueryResponse(sql, null, "Error: " + e.getMessage()));
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                copyExportService.copyOut(copySql, gzip, out, dbMillis -> clientRateLimiter.recordDbTime(clientId, dbMillis));
+            } finally {
+                copyExportService.releaseSlot();
+            }
+        };
+
+        String filename = "query-export." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .body(body);
+    }
+
+    private String clientId(String apiKey, HttpServletRequest httpRequest) {
+        return clientRateLimiter.resolveClientId(apiKey, httpRequest.getRemoteAddr());
+    }
+
+    private ResponseEntity<QueryResponse> tooManyRequests(long retryAfterSeconds, String error) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new QueryResponse(null, null, error));
     }
 
     /**
@@ -12,4 +12,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class QueryRequest {
     private String question;
+    
+    /**
+     * Opt-in: answer aggregate questions from a sample of the largest table, with error bounds.
+     */
+    private boolean approximate;
+    
+    public QueryRequest(String question) {
+        this.question = question;
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.SQLMLProject.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,4 +17,29 @@ public class QueryResponse {
     private String sql;
     private List<Map<String, Object>> result;
     private String error;
+    
+    // Set only for approximate requests; omitted from the JSON otherwise
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean approximate;
+    
+    /**
+     * Fraction of the sampled table that was read (1.0 when the query ran exactly).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double samplingRate;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double confidenceLevel;
+    
+    /**
+     * Per result row, the half-width of the confidence interval of each estimated column.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Map<String, Double>> errorBounds;
+    
+    public QueryResponse(String sql, List<Map<String, Object>> result, String error) {
+        this.sql = sql;
+        this.result = result;
+        this.error = error;
+    }
 }
@@ -0,0 +1,24 @@
+package com.example.SQLMLProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for profiling statistics of one SQL fingerprint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlStatementStats {
+    private String fingerprint;
+    private long calls;
+    private long errors;
+    private long rows;
+    private double totalMs;
+    private double meanMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+}
@@ -1,10 +1,12 @@
 package com.example.SQLMLProject.repository;
 
 import com.example.SQLMLProject.entity.Car;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
@@ -12,6 +14,7 @@ import java.util.List;
 
 /**
  * Repository for Car entity with custom queries for dashboard.
+ * Finder results are kept in the "car-queries" region of the Hibernate query cache.
  */
 @Repository
 public interface CarRepository extends JpaRepository<Car, Long> {
@@ -19,21 +22,37 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     /**
      * Find all cars with a specific status.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "car-queries")
+    })
     Page<Car> findByStatus(String status, Pageable pageable);
     
     /**
      * Find cars by make.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "car-queries")
+    })
     Page<Car> findByMake(String make, Pageable pageable);
     
     /**
      * Find cars within a price range.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "car-queries")
+    })
     Page<Car> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
     
     /**
      * Find cars by year.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "car-queries")
+    })
     Page<Car> findByYear(Integer year, Pageable pageable);
     
     /**
@@ -1,16 +1,19 @@
 package com.example.SQLMLProject.repository;
 
 import com.example.SQLMLProject.entity.Customer;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 /**
  * Repository for Customer entity.
+ * Finder results are kept in the "customer-queries" region of the Hibernate query cache.
  */
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -18,11 +21,19 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     /**
      * Find customers by city.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "customer-queries")
+    })
     Page<Customer> findByCity(String city, Pageable pageable);
     
     /**
      * Find customers by name (partial match).
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "customer-queries")
+    })
     Page<Customer> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
     /**
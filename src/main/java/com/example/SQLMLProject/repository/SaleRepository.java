@@ -3,6 +3,7 @@ package com.example.SQLMLProject.repository;
 import com.example.SQLMLProject.entity.Sale;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,12 +20,21 @@ import java.util.List;
 public interface SaleRepository extends JpaRepository<Sale, Long> {
     
     /**
-     * Find recent sales ordered by date descending.
+     * Find recent sales ordered by date descending, with id as a tie-breaker so pages don't overlap.
+     * Monthly partitions are scanned newest first and the scan stops at the page limit;
+     * a slice only checks for a next page instead of counting rows in every partition.
      */
-    Page<Sale> findAllByOrderBySaleDateDesc(Pageable pageable);
+    Slice<Sale> findAllByOrderBySaleDateDescIdDesc(Pageable pageable);
+    
+    /**
+     * Find the most recent sales without counting the whole table.
+     * The ordered scan reads the newest partitions first and stops after the limit.
+     */
+    List<Sale> findTop5ByOrderBySaleDateDesc();
     
     /**
      * Find sales within a date range.
+     * The range on the partition key lets the planner skip partitions outside it.
      */
     Page<Sale> findBySaleDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
     
@@ -55,9 +65,18 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     /**
      * Get sales revenue by month for current year.
      */
+    default List<Object[]> getSalesRevenueByMonth() {
+        LocalDate startOfYear = LocalDate.now().withDayOfYear(1);
+        return getSalesRevenueByMonthBetween(startOfYear, startOfYear.plusYears(1));
+    }
+    
+    /**
+     * Get sales revenue by month for sales in [from, to).
+     * A plain range on sale_date (rather than YEAR(sale_date)) is what allows partition pruning.
+     */
     @Query("SELECT FUNCTION('DATE_TRUNC', 'month', s.saleDate), COUNT(s), SUM(s.salePrice) " +
-           "FROM Sale s WHERE YEAR(s.saleDate) = YEAR(CURRENT_DATE) " +
+           "FROM Sale s WHERE s.saleDate >= :from AND s.saleDate < :to " +
            "GROUP BY FUNCTION('DATE_TRUNC', 'month', s.saleDate) " +
            "ORDER BY FUNCTION('DATE_TRUNC', 'month', s.saleDate) DESC")
-    List<Object[]> getSalesRevenueByMonth();
+    List<Object[]> getSalesRevenueByMonthBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,404 @@
+package com.example.SQLMLProject.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Approximate answers for aggregate queries over large tables.
+ * The first configured candidate table in the query is read through TABLESAMPLE and COUNT and SUM results are scaled up by the
+ * inverse sampling rate. With BERNOULLI (row-level) sampling a 95% error bound is computed for every
+ * COUNT, SUM and AVG column; SYSTEM sampling picks whole pages, so rows are not independent and no
+ * bounds are reported. Queries that cannot be estimated this way (MIN/MAX, DISTINCT, HAVING, subqueries,
+ * or the sampled table on the nullable side of an outer join) run exactly.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ApproximateQueryService {
+
+    public static final double CONFIDENCE_LEVEL = 0.95;
+    private static final double Z_95 = 1.96;
+
+    private static final String HIDDEN_PREFIX = "approx_";
+    private static final double MIN_SAMPLING_RATE = 0.0001;
+    private static final String ROW_LEVEL_METHOD = "BERNOULLI";
+
+    private static final Pattern AGGREGATE_CALL = Pattern.compile(
+            "(?i)\\b(COUNT|SUM|AVG|MIN|MAX|STDDEV\\w*|VARIANCE|VAR_\\w+|ARRAY_AGG|STRING_AGG|JSON_\\w*AGG|BOOL_\\w+|EVERY|PERCENTILE_\\w+|MODE)\\s*\\(");
+    private static final Pattern UNSUPPORTED = Pattern.compile(
+            "(?i)\\b(DISTINCT|HAVING|UNION|INTERSECT|EXCEPT|OVER|FILTER|TABLESAMPLE|GROUPING|ROLLUP|CUBE)\\b|\\(\\s*SELECT\\b");
+    private static final Pattern ROUND_CALL = Pattern.compile("(?is)^ROUND\\s*\\((.*)\\)$");
+    private static final Pattern ROUND_DIGITS = Pattern.compile("(?s)^(.*?)\\s*,\\s*\\d+\\s*$");
+    private static final Pattern SIMPLE_AGGREGATE = Pattern.compile("(?is)^(COUNT|SUM|AVG)\\s*\\((.*)\\)$");
+    private static final Pattern NULLABLE_JOIN = Pattern.compile("(?i)\\b(?:LEFT|FULL)(?:\\s+OUTER)?\\s+$");
+    private static final Pattern LATER_NULLING_JOIN = Pattern.compile("(?i)\\b(?:RIGHT|FULL)(?:\\s+OUTER)?\\s+JOIN\\b");
+    private static final Pattern TRAILING_ALIAS = Pattern.compile(
+            "(?is)^(.*\\))\\s+(?:AS\\s+)?(\"[^\"]+\"|[a-z_][a-z0-9_]*)$");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${query.approximate.method:BERNOULLI}")
+    private String samplingMethod;
+
+    @Value("${query.approximate.target-sample-rows:100000}")
+    private long targetSampleRows;
+
+    @Value("${query.approximate.min-table-rows:1000000}")
+    private long minTableRows;
+
+    // Candidate tables to sample, largest (fact) table first; dimension tables joined to it stay complete
+    @Value("${query.approximate.tables:sale,car,customer}")
+    private List<String> sampledTables;
+
+    enum Kind { COUNT, SUM, AVG }
+
+    record Aggregate(Kind kind, String column, int index) {
+    }
+
+    /**
+     * A sampled rewrite of a query.
+     *
+     * @param sql          Rewritten SQL with TABLESAMPLE and hidden error-estimation columns
+     * @param samplingRate Fraction of the sampled table that is read
+     * @param aggregates   COUNT, SUM and AVG columns of the result
+     * @param errorBounded Whether rows are sampled independently, so error bounds can be computed
+     */
+    public record SampledQuery(String sql, double samplingRate, List<Aggregate> aggregates, boolean errorBounded) {
+    }
+
+    /**
+     * Rewrites an aggregate query to run on a sample.
+     *
+     * @param sql Validated SELECT query
+     * @return Sampled query, or empty if the query must run exactly
+     */
+    public Optional<SampledQuery> rewrite(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        if (UNSUPPORTED.matcher(trimmed).find()) {
+            return Optional.empty();
+        }
+
+        int fromIndex = topLevelKeyword(trimmed, "FROM");
+        if (!trimmed.regionMatches(true, 0, "SELECT", 0, 6) || fromIndex < 0) {
+            return Optional.empty();
+        }
+        List<String> items = splitTopLevel(trimmed.substring(6, fromIndex));
+        String fromClause = trimmed.substring(fromIndex);
+
+        List<Aggregate> aggregates = new ArrayList<>();
+        List<String> hiddenColumns = new ArrayList<>();
+        for (String item : items) {
+            if (!parseItem(item.trim(), aggregates, hiddenColumns)) {
+                return Optional.empty();
+            }
+        }
+        if (aggregates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<TableSample> sample = chooseSample(fromClause);
+        if (sample.isEmpty()) {
+            return Optional.empty();
+        }
+
+        double rate = sample.get().rate();
+        String percent = String.format(Locale.ROOT, "%.4f", rate * 100);
+        int insertAt = sample.get().insertAt();
+        String method = samplingMethod.trim().toUpperCase(Locale.ROOT);
+        String sampledFrom = fromClause.substring(0, insertAt)
+                + " TABLESAMPLE " + method + " (" + percent + ")"
+                + fromClause.substring(insertAt);
+
+        boolean errorBounded = method.equals(ROW_LEVEL_METHOD);
+        List<String> selectList = new ArrayList<>(items.stream().map(String::trim).toList());
+        if (errorBounded) {
+            selectList.addAll(hiddenColumns);
+        }
+        String rewritten = "SELECT " + String.join(", ", selectList) + " " + sampledFrom;
+        return Optional.of(new SampledQuery(rewritten, Double.parseDouble(percent) / 100, aggregates, errorBounded));
+    }
+
+    /**
+     * Scales sampled COUNT and SUM values to full-table estimates in place, drops the hidden columns,
+     * and computes the half-width of the 95% confidence interval of each aggregate column.
+     *
+     * @param query Sampled query that produced the rows
+     * @param rows  Result rows, modified in place
+     * @return One map of column name to error bound per row, or null if the sample has no error bounds
+     */
+    public List<Map<String, Double>> estimate(SampledQuery query, List<Map<String, Object>> rows) {
+        double p = query.samplingRate();
+        if (!query.errorBounded()) {
+            for (Map<String, Object> row : rows) {
+                for (Aggregate aggregate : query.aggregates()) {
+                    if (aggregate.kind() != Kind.AVG) {
+                        row.put(aggregate.column(), scale(row.get(aggregate.column()), p));
+                    }
+                }
+            }
+            return null;
+        }
+
+        List<Map<String, Double>> bounds = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Map<String, Double> rowBounds = new LinkedHashMap<>();
+            for (Aggregate aggregate : query.aggregates()) {
+                Object value = row.get(aggregate.column());
+                Double bound = switch (aggregate.kind()) {
+                    case COUNT -> {
+                        double n = toDouble(value);
+                        row.put(aggregate.column(), scale(value, p));
+                        yield Z_95 * Math.sqrt((1 - p) * n) / p;
+                    }
+                    case SUM -> {
+                        double sumOfSquares = toDouble(row.remove(hiddenName(aggregate, "ss")));
+                        row.put(aggregate.column(), scale(value, p));
+                        yield Z_95 * Math.sqrt((1 - p) * sumOfSquares) / p;
+                    }
+                    case AVG -> {
+                        double stddev = toDouble(row.remove(hiddenName(aggregate, "sd")));
+                        double n = toDouble(row.remove(hiddenName(aggregate, "n")));
+                        yield n > 1 ? Z_95 * stddev / Math.sqrt(n) * Math.sqrt(1 - p) : null;
+                    }
+                };
+                if (value != null && bound != null) {
+                    rowBounds.put(aggregate.column(), roundBound(bound));
+                }
+            }
+            bounds.add(rowBounds);
+        }
+        return bounds;
+    }
+
+    /**
+     * Classifies one select list item; aggregate items get their error-estimation columns added.
+     *
+     * @return false if the item contains an aggregate that cannot be estimated from a sample
+     */
+    private boolean parseItem(String item, List<Aggregate> aggregates, List<String> hiddenColumns) {
+        String expression = item;
+        String column = null;
+        Matcher alias = TRAILING_ALIAS.matcher(item);
+        if (alias.matches()) {
+            expression = alias.group(1).trim();
+            column = alias.group(2).replace("\"", "");
+        }
+
+        Matcher calls = AGGREGATE_CALL.matcher(expression);
+        int callCount = 0;
+        while (calls.find()) {
+            callCount++;
+        }
+        if (callCount == 0) {
+            return true;
+        }
+        if (callCount > 1) {
+            return false;
+        }
+
+        String call = expression;
+        Matcher round = ROUND_CALL.matcher(expression);
+        if (round.matches() && closesAtEnd(expression, expression.indexOf('('))) {
+            Matcher digits = ROUND_DIGITS.matcher(round.group(1));
+            call = (digits.matches() ? digits.group(1) : round.group(1)).trim();
+        }
+        Matcher aggregate = SIMPLE_AGGREGATE.matcher(call);
+        if (!aggregate.matches() || !closesAtEnd(call, call.indexOf('('))) {
+            return false;
+        }
+
+        Kind kind = Kind.valueOf(aggregate.group(1).toUpperCase(Locale.ROOT));
+        String argument = aggregate.group(2).trim();
+        if (column == null) {
+            // PostgreSQL names an unaliased column after its outermost function
+            column = (round.matches() ? "round" : kind.name()).toLowerCase(Locale.ROOT);
+        }
+
+        Aggregate parsed = new Aggregate(kind, column, aggregates.size());
+        aggregates.add(parsed);
+        if (kind == Kind.SUM) {
+            hiddenColumns.add("SUM((" + argument + ")::float8 * (" + argument + ")::float8) AS " + hiddenName(parsed, "ss"));
+        } else if (kind == Kind.AVG) {
+            hiddenColumns.add("STDDEV_SAMP((" + argument + ")::float8) AS " + hiddenName(parsed, "sd"));
+            hiddenColumns.add("COUNT(" + argument + ") AS " + hiddenName(parsed, "n"));
+        }
+        return true;
+    }
+
+    private record TableSample(int insertAt, double rate) {
+    }
+
+    /**
+     * Picks the first configured table that appears once in the FROM clause and is large enough to sample.
+     * If that table is on the nullable side of an outer join the query runs exactly: preserved rows that lose
+     * their match in the sample would still be returned, NULL-extended, and sampling the preserved side instead
+     * would be a cluster sample, for which the row-level error bounds are too narrow.
+     */
+    private Optional<TableSample> chooseSample(String fromClause) {
+        for (String table : sampledTables) {
+            Pattern reference = Pattern.compile("(?i)\\b(?:FROM|JOIN)\\s+" + Pattern.quote(table.trim())
+                    + "\\b(?:\\s+(?:AS\\s+)?(?!(?:ON|USING|WHERE|JOIN|INNER|LEFT|RIGHT|FULL|CROSS|NATURAL|GROUP|ORDER|LIMIT|OFFSET)\\b)[a-z_][a-z0-9_]*)?");
+            Matcher matcher = reference.matcher(fromClause);
+            if (!matcher.find()) {
+                continue;
+            }
+            int insertAt = matcher.end();
+            if (NULLABLE_JOIN.matcher(fromClause.substring(0, matcher.start())).find()
+                    || LATER_NULLING_JOIN.matcher(fromClause.substring(insertAt)).find()) {
+                return Optional.empty();
+            }
+            if (matcher.find()) {
+                // Self joins would be sampled twice
+                return Optional.empty();
+            }
+
+            long rows = estimatedRows(table.trim());
+            if (rows < minTableRows) {
+                return Optional.empty();
+            }
+            double rate = Math.max(MIN_SAMPLING_RATE, (double) targetSampleRows / rows);
+            if (rate >= 1) {
+                return Optional.empty();
+            }
+            log.debug("Sampling {} ({} estimated rows) at rate {}", table, rows, rate);
+            return Optional.of(new TableSample(insertAt, rate));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Planner row estimate of a table; for a partitioned table, the sum over its partitions.
+     */
+    private long estimatedRows(String table) {
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint FROM pg_class c " +
+                "WHERE c.oid = to_regclass(?) " +
+                "OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass(?))",
+                Long.class, table, table);
+        return rows != null ? rows : 0;
+    }
+
+    private static String hiddenName(Aggregate aggregate, String suffix) {
+        return HIDDEN_PREFIX + aggregate.index() + "_" + suffix;
+    }
+
+    private static Object scale(Object value, double p) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.divide(BigDecimal.valueOf(p), decimal.scale(), RoundingMode.HALF_UP);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return ((Number) value).doubleValue() / p;
+        }
+        if (value instanceof Number number) {
+            return Math.round(number.doubleValue() / p);
+        }
+        return value;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    private static double roundBound(double bound) {
+        return BigDecimal.valueOf(bound).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * Whether the parenthesis at openIndex is closed by the last character of the expression.
+     */
+    private static boolean closesAtEnd(String expression, int openIndex) {
+        if (openIndex < 0) {
+            return false;
+        }
+        int depth = 0;
+        char quote = 0;
+        for (int i = openIndex; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i == expression.length() - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Index of a keyword outside parentheses and quotes, or -1.
+     */
+    private static int topLevelKeyword(String sql, String keyword) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && sql.regionMatches(true, i, keyword, 0, keyword.length())
+                    && (i == 0 || !Character.isLetterOrDigit(sql.charAt(i - 1)) && sql.charAt(i - 1) != '_')
+                    && (i + keyword.length() == sql.length() || !Character.isLetterOrDigit(sql.charAt(i + keyword.length())))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits a select list on commas outside parentheses and quotes.
+     */
+    private static List<String> splitTopLevel(String selectList) {
+        List<String> items = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < selectList.length(); i++) {
+            char c = selectList.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                items.add(selectList.substring(start, i));
+                start = i + 1;
+            }
+        }
+        items.add(selectList.substring(start));
+        return items;
+    }
+}
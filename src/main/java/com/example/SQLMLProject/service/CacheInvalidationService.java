@@ -0,0 +1,325 @@
+package com.example.SQLMLProject.service;
+
+import com.example.SQLMLProject.config.CacheConfig;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Cluster-wide cache invalidation bus built on PostgreSQL LISTEN/NOTIFY.
+ * Table triggers (or {@link #publish(String)}) send the changed table name; every node listens on a
+ * dedicated connection, coalesces bursts of notifications and evicts the affected local caches,
+ * including the Hibernate second-level cache regions of the changed tables.
+ * The triggers are installed on connect if missing, since schema.sql only runs for embedded databases.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationService implements SmartLifecycle {
+
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+    private static final int POLL_TIMEOUT_MS = 500;
+
+    private static final String NOTIFY_FUNCTION_SQL = """
+            CREATE OR REPLACE FUNCTION notify_cache_invalidation() RETURNS trigger AS $$
+            BEGIN
+                PERFORM pg_notify('%s', TG_TABLE_NAME);
+                RETURN NULL;
+            END;
+            $$ LANGUAGE plpgsql""";
+    private static final String TRIGGER_MISSING_SQL =
+            "SELECT to_regclass(?) IS NOT NULL AND NOT EXISTS " +
+            "(SELECT 1 FROM pg_trigger WHERE tgrelid = to_regclass(?) AND tgname = ?)";
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.invalidation.channel:cache_invalidation}")
+    private String channel;
+
+    @Value("${cache.invalidation.coalesce-ms:20}")
+    private long coalesceMs;
+
+    @Value("${cache.invalidation.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    @Value("${cache.invalidation.install-triggers:true}")
+    private boolean installTriggers;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    /**
+     * Notifies all nodes (including this one) that a table changed.
+     * When called inside a transaction the notification is delivered on commit.
+     *
+     * @param table Name of the changed table
+     */
+    public void publish(String table) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, table.toLowerCase());
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Cache invalidation bus is disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Keeps a LISTEN connection open, reconnecting with exponential backoff when it drops.
+     */
+    private void listenLoop() {
+        long reconnectDelay = 100;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                if (installTriggers) {
+                    installTriggers(connection);
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for cache invalidations on channel '{}'", channel);
+
+                // Notifications sent while we were disconnected are lost, so start from a clean slate
+                evictAll();
+                reconnectDelay = 100;
+
+                receiveNotifications(connection);
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Cache invalidation connection lost, reconnecting in {} ms: {}", reconnectDelay, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+        log.info("Cache invalidation listener stopped");
+    }
+
+    /**
+     * Reads notifications until the connection fails or the bus is stopped.
+     * Table names arriving within the coalescing window are evicted together.
+     */
+    private void receiveNotifications(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        NotificationCoalescer coalescer = new NotificationCoalescer(coalesceMs);
+        long lastHeartbeat = System.currentTimeMillis();
+
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(
+                    coalescer.pollTimeout(System.currentTimeMillis(), POLL_TIMEOUT_MS));
+            long now = System.currentTimeMillis();
+
+            if (notifications != null && notifications.length > 0) {
+                List<String> tables = new ArrayList<>(notifications.length);
+                for (PGNotification notification : notifications) {
+                    tables.add(notification.getParameter());
+                }
+                coalescer.add(tables, now);
+                lastHeartbeat = now;
+            }
+
+            Set<String> dueTables = coalescer.drainDue(now);
+            if (!dueTables.isEmpty()) {
+                evictTables(dueTables);
+            }
+
+            // A silently dropped TCP connection never errors on read, so probe it periodically
+            if (now - lastHeartbeat >= heartbeatMs) {
+                if (!connection.isValid(5)) {
+                    throw new SQLException("Heartbeat failed");
+                }
+                lastHeartbeat = now;
+            }
+        }
+    }
+
+    /**
+     * Creates the notify function and any missing table triggers in one transaction.
+     * An advisory lock serializes nodes starting together; failures (e.g. missing privileges) are logged
+     * and the bus keeps relying on existing triggers and {@link #publish(String)}.
+     */
+    private void installTriggers(Connection connection) throws SQLException {
+        Set<String> tables = new TreeSet<>(CacheConfig.CACHES_BY_TABLE.keySet());
+        tables.addAll(CacheConfig.REGIONS_BY_TABLE.keySet());
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement();
+             PreparedStatement triggerMissing = connection.prepareStatement(TRIGGER_MISSING_SQL)) {
+            statement.execute("SELECT pg_advisory_xact_lock(hashtext('cache_invalidation_triggers'))");
+            statement.execute(NOTIFY_FUNCTION_SQL.formatted(channel.replace("'", "''")));
+            for (String table : tables) {
+                String trigger = table + "_cache_invalidation";
+                triggerMissing.setString(1, table);
+                triggerMissing.setString(2, table);
+                triggerMissing.setString(3, trigger);
+                try (ResultSet rs = triggerMissing.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        statement.execute("CREATE TRIGGER " + trigger +
+                                " AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON " + table +
+                                " FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation()");
+                        log.info("Installed cache invalidation trigger on {}", table);
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            log.warn("Could not install cache invalidation triggers: {}", e.getMessage());
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword());
+    }
+
+    private void evictTables(Set<String> tables) {
+        Invalidation invalidation = invalidationFor(tables);
+        Set<String> cacheNames = invalidation.cacheNames();
+        Set<String> regions = invalidation.regions();
+        for (String cacheName : cacheNames) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        org.hibernate.Cache secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (String region : regions) {
+            secondLevelCache.evictRegion(region);
+        }
+        log.debug("Invalidated caches {} and regions {} for changed tables {}", cacheNames, regions, tables);
+    }
+
+    private void evictAll() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    /**
+     * Spring caches and Hibernate regions affected by a set of changed tables.
+     */
+    record Invalidation(Set<String> cacheNames, Set<String> regions) {
+    }
+
+    /**
+     * Maps changed tables to the caches and regions to evict; tables without cached data map to nothing.
+     */
+    static Invalidation invalidationFor(Collection<String> tables) {
+        Set<String> cacheNames = new HashSet<>();
+        Set<String> regions = new HashSet<>();
+        for (String table : tables) {
+            cacheNames.addAll(CacheConfig.CACHES_BY_TABLE.getOrDefault(table, List.of()));
+            regions.addAll(CacheConfig.REGIONS_BY_TABLE.getOrDefault(table, List.of()));
+        }
+        return new Invalidation(cacheNames, regions);
+    }
+
+    /**
+     * Collects changed table names so that a burst of notifications causes a single eviction.
+     * The window opens with the first notification after a flush and is not extended by later ones,
+     * so a steady stream of writes still evicts at least once per window.
+     */
+    static class NotificationCoalescer {
+        private final long windowMs;
+        private final Set<String> pendingTables = new HashSet<>();
+        private long flushAt;
+
+        NotificationCoalescer(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        void add(Collection<String> tables, long now) {
+            if (tables.isEmpty()) {
+                return;
+            }
+            if (pendingTables.isEmpty()) {
+                flushAt = now + windowMs;
+            }
+            for (String table : tables) {
+                pendingTables.add(table.toLowerCase());
+            }
+        }
+
+        /**
+         * How long to wait for notifications: until the open window closes, otherwise the idle timeout.
+         */
+        int pollTimeout(long now, int idleTimeoutMs) {
+            return pendingTables.isEmpty() ? idleTimeoutMs : (int) Math.max(1, flushAt - now);
+        }
+
+        /**
+         * Returns and forgets the pending tables once the window has closed; returns an empty set before that.
+         */
+        Set<String> drainDue(long now) {
+            if (pendingTables.isEmpty() || now < flushAt) {
+                return Set.of();
+            }
+            Set<String> due = new HashSet<>(pendingTables);
+            pendingTables.clear();
+            return due;
+        }
+    }
+}
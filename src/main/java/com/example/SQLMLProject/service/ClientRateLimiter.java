@@ -0,0 +1,146 @@
+package com.example.SQLMLProject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client budgets for /api/query, with separate token buckets for LLM calls and database time.
+ * An LLM call is reserved on admission and refunded when the intent fast path answers instead;
+ * database time is charged after execution and may put the client into debt.
+ */
+@Service
+public class ClientRateLimiter {
+
+    private static final int CLEANUP_INTERVAL = 1024;
+
+    private final ConcurrentMap<String, ClientBudget> budgets = new ConcurrentHashMap<>();
+    private final AtomicLong admissions = new AtomicLong();
+    private final Set<String> knownApiKeys = new HashSet<>();
+
+    @Value("${query.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${query.rate-limit.llm.capacity:20}")
+    private double llmCapacity;
+
+    @Value("${query.rate-limit.llm.per-minute:30}")
+    private double llmPerMinute;
+
+    @Value("${query.rate-limit.db.capacity-ms:10000}")
+    private double dbCapacityMs;
+
+    @Value("${query.rate-limit.db.per-minute-ms:30000}")
+    private double dbPerMinuteMs;
+
+    @Value("${query.rate-limit.max-clients:10000}")
+    private int maxClients;
+
+    public ClientRateLimiter(@Value("${query.rate-limit.api-keys:}") String apiKeys,
+                             @Value("${query.scheduler.weights:}") String weights) {
+        for (String key : apiKeys.split(",")) {
+            if (!key.isBlank()) {
+                knownApiKeys.add(key.trim());
+            }
+        }
+        // Keys with a scheduler weight are known clients too
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                knownApiKeys.add(parts[0].trim());
+            }
+        }
+    }
+
+    /**
+     * Resolves the identity budgets are keyed on.
+     * Only configured API keys count; any other caller, including one sending an unknown key,
+     * is identified by its IP, so it cannot get a fresh budget by changing the key.
+     *
+     * @param apiKey     X-API-Key header, may be null
+     * @param remoteAddr Caller's IP (the forwarded client address behind the load balancer)
+     * @return Client ID for {@link #tryAdmit(String)} and the scheduler
+     */
+    public String resolveClientId(String apiKey, String remoteAddr) {
+        return apiKey != null && knownApiKeys.contains(apiKey.trim()) ? apiKey.trim() : remoteAddr;
+    }
+
+    /**
+     * Admits a request if the client has an LLM call and some database time left.
+     *
+     * @param clientId API key or IP of the caller
+     * @return 0 if admitted, otherwise the number of seconds the client should wait
+     */
+    public long tryAdmit(String clientId) {
+        return admit(clientId, true);
+    }
+
+    /**
+     * Admits a request that does not call the LLM (e.g. a dashboard export) if the client has some database time left.
+     *
+     * @param clientId API key or IP of the caller
+     * @return 0 if admitted, otherwise the number of seconds the client should wait
+     */
+    public long tryAdmitDbOnly(String clientId) {
+        return admit(clientId, false);
+    }
+
+    private long admit(String clientId, boolean llmCall) {
+        if (!enabled) {
+            return 0;
+        }
+        if (admissions.incrementAndGet() % CLEANUP_INTERVAL == 0 && budgets.size() > maxClients) {
+            // Idle clients are back at full budget, so forgetting them changes nothing
+            budgets.values().removeIf(ClientBudget::isIdle);
+        }
+
+        ClientBudget budget = budgets.computeIfAbsent(clientId, id -> new ClientBudget());
+        long dbWait = budget.db.nanosUntilAvailable(1);
+        if (dbWait > 0) {
+            return toRetryAfterSeconds(dbWait);
+        }
+        if (llmCall && !budget.llm.tryConsume(1)) {
+            return toRetryAfterSeconds(budget.llm.nanosUntilAvailable(1));
+        }
+        return 0;
+    }
+
+    /**
+     * Gives back the LLM call reserved on admission when the question was answered locally.
+     */
+    public void refundLlmCall(String clientId) {
+        ClientBudget budget = budgets.get(clientId);
+        if (enabled && budget != null) {
+            budget.llm.consume(-1);
+        }
+    }
+
+    /**
+     * Charges database time spent on behalf of the client.
+     */
+    public void recordDbTime(String clientId, long millis) {
+        ClientBudget budget = budgets.get(clientId);
+        if (enabled && budget != null) {
+            budget.db.consume(millis);
+        }
+    }
+
+    private static long toRetryAfterSeconds(long nanos) {
+        return Math.max(1, (long) Math.ceil(nanos / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private class ClientBudget {
+        private final TokenBucket llm = new TokenBucket(llmCapacity, llmPerMinute);
+        private final TokenBucket db = new TokenBucket(dbCapacityMs, dbPerMinuteMs);
+
+        private boolean isIdle() {
+            return llm.isFull() && db.isFull();
+        }
+    }
+}
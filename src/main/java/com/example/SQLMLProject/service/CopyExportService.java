@@ -0,0 +1,225 @@
+package com.example.SQLMLProject.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk export of query results through PostgreSQL COPY ... TO STDOUT.
+ * The driver's byte stream is written straight to the given output, without materializing rows in Java.
+ * An export holds a pooled connection for the whole download, so only a few may run at once.
+ */
+@Service
+@Slf4j
+public class CopyExportService {
+
+    /**
+     * Supported COPY output formats.
+     */
+    public enum Format {
+        CSV("text/csv", "csv", "(FORMAT csv, HEADER)"),
+        BINARY("application/octet-stream", "pgcopy", "(FORMAT binary)");
+
+        private final String contentType;
+        private final String extension;
+        private final String copyOptions;
+
+        Format(String contentType, String extension, String copyOptions) {
+            this.contentType = contentType;
+            this.extension = extension;
+            this.copyOptions = copyOptions;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Semaphore exportSlots;
+
+    public CopyExportService(JdbcTemplate jdbcTemplate,
+                             @Value("${query.export.max-concurrent:2}") int maxConcurrent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves an export slot without waiting.
+     *
+     * @return Whether a slot was free; if so, it must be given back with {@link #releaseSlot()} when the export ends
+     */
+    public boolean tryAcquireSlot() {
+        return exportSlots.tryAcquire();
+    }
+
+    /**
+     * Gives back a slot reserved with {@link #tryAcquireSlot()}.
+     */
+    public void releaseSlot() {
+        exportSlots.release();
+    }
+
+    /**
+     * Wraps a validated SELECT query in a COPY statement.
+     *
+     * @param sql    SELECT query to export
+     * @param format Output format
+     * @return COPY ... TO STDOUT statement
+     * @throws IllegalArgumentException if the query could escape the COPY parentheses
+     */
+    public String buildCopySql(String sql, Format format) {
+        return "COPY (\n" + toSubquery(sql) + "\n) TO STDOUT WITH " + format.copyOptions;
+    }
+
+    /**
+     * Runs a COPY statement and streams its output.
+     * Time spent compressing and writing to {@code out} depends on the client's download speed, so it is not
+     * counted as database time.
+     *
+     * @param copySql Statement built by {@link #buildCopySql(String, Format)}
+     * @param gzip    Whether to gzip the stream
+     * @param out     Destination, typically the HTTP response body
+     * @param dbTime  Receives the milliseconds spent waiting on the database, also when the export fails
+     * @return Number of rows exported
+     */
+    public long copyOut(String copySql, boolean gzip, OutputStream out, LongConsumer dbTime) throws IOException {
+        OutputStream response = new NonClosingOutputStream(out);
+        long rows;
+        // Closing the gzip stream writes its trailer and releases its native Deflater, also on failure
+        try (OutputStream target = gzip ? new GZIPOutputStream(response, 64 * 1024) : response) {
+            WriteTimingOutputStream timed = new WriteTimingOutputStream(target);
+            long start = System.nanoTime();
+            try {
+                Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, timed);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                rows = copied != null ? copied : 0;
+            } finally {
+                dbTime.accept(Math.max(0, System.nanoTime() - start - timed.writeNanos) / 1_000_000);
+            }
+        }
+
+        log.info("Exported {} rows{}", rows, gzip ? " (gzip)" : "");
+        return rows;
+    }
+
+    /**
+     * Makes sure the query can only occupy the parentheses of the COPY statement.
+     */
+    private String toSubquery(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if ((c == '\'' && i > 0 && Character.toUpperCase(trimmed.charAt(i - 1)) == 'E')
+                    || trimmed.startsWith("--", i) || trimmed.startsWith("/*", i) || c == '$') {
+                // Escape strings, comments and dollar quoting could hide a parenthesis from this check
+                throw new IllegalArgumentException("Unsupported syntax in exported query");
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth < 0) {
+                throw new IllegalArgumentException("Unbalanced parentheses in query");
+            } else if (c == ';') {
+                throw new IllegalArgumentException("Multiple statements are not allowed");
+            }
+        }
+        if (depth != 0 || quote != 0) {
+            throw new IllegalArgumentException("Unbalanced parentheses or quotes in query");
+        }
+        return trimmed;
+    }
+
+    /**
+     * Flushes instead of closing, so wrapping streams can be closed without closing the response,
+     * which belongs to the servlet container.
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Adds up the time spent in writes, i.e. waiting on compression and the client rather than on the database.
+     */
+    private static class WriteTimingOutputStream extends FilterOutputStream {
+
+        private long writeNanos;
+
+        WriteTimingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            try {
+                out.write(b);
+            } finally {
+                writeNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                out.write(b, off, len);
+            } finally {
+                writeNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            try {
+                out.flush();
+            } finally {
+                writeNanos += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.example.SQLMLProject.service;
 
+import com.example.SQLMLProject.config.CacheConfig;
 import com.example.SQLMLProject.dto.DashboardStats;
 import com.example.SQLMLProject.repository.CarRepository;
 import com.example.SQLMLProject.repository.SaleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -27,7 +28,9 @@ public class DashboardService {
     
     /**
      * Get comprehensive dashboard statistics.
+     * Cached until a write to car, customer or sale is seen on the invalidation bus.
      */
+    @Cacheable(CacheConfig.DASHBOARD_STATS)
     public DashboardStats getDashboardStats() {
         log.info("Generating dashboard statistics");
         
@@ -54,8 +57,8 @@ public class DashboardService {
         stats.setInventoryByMake(inventoryByMake);
         
         // Top recent sales
-        var topSales = saleRepository.findAllByOrderBySaleDateDesc(PageRequest.of(0, 5));
-        List<Map<String, Object>> topSalesList = topSales.getContent().stream()
+        var topSales = saleRepository.findTop5ByOrderBySaleDateDesc();
+        List<Map<String, Object>> topSalesList = topSales.stream()
                 .map(sale -> {
                     Map<String, Object> saleMap = new HashMap<>();
                     saleMap.put("id", sale.getId());
@@ -0,0 +1,207 @@
+package com.example.SQLMLProject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair queue in front of query processing.
+ * Up to max-concurrent queries run at once; while below that limit requests pass through without locking.
+ * Once saturated, waiting requests are released in start-time fair queuing order, so each client gets a
+ * share of the slots proportional to its weight no matter how many requests it has queued.
+ */
+@Service
+public class FairQueryScheduler {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, AtomicInteger> queuedPerClient = new ConcurrentHashMap<>();
+
+    // Guarded by "queue"
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+            Comparator.comparingDouble(Ticket::startTag).thenComparingLong(Ticket::sequence));
+    private final Map<String, Double> lastFinishTags = new HashMap<>();
+    private double virtualTime;
+
+    private final int maxConcurrent;
+    private final int maxQueuedPerClient;
+    private final long maxWaitMs;
+    private final Map<String, Double> weights = new HashMap<>();
+
+    public FairQueryScheduler(@Value("${query.scheduler.max-concurrent:16}") int maxConcurrent,
+                              @Value("${query.scheduler.max-queue-per-client:20}") int maxQueuedPerClient,
+                              @Value("${query.scheduler.max-wait-ms:10000}") long maxWaitMs,
+                              @Value("${query.scheduler.weights:}") String weights) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueuedPerClient = maxQueuedPerClient;
+        this.maxWaitMs = maxWaitMs;
+
+        // Format: client1:3,client2:2
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length == 2) {
+                this.weights.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            }
+        }
+    }
+
+    /**
+     * Thrown when a request could not get a processing slot in time or the client has too many queued.
+     */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Runs the task once a processing slot is available for the client.
+     *
+     * @param clientId API key or IP of the caller
+     * @param task     Work to run
+     * @return Result of the task
+     */
+    public <T> T execute(String clientId, Supplier<T> task) {
+        if (!tryAcquireFast()) {
+            awaitTurn(clientId);
+        }
+        try {
+            return task.get();
+        } finally {
+            release();
+        }
+    }
+
+    private boolean tryAcquireFast() {
+        if (waiting.get() > 0) {
+            return false;
+        }
+        return tryAcquireSlot();
+    }
+
+    private boolean tryAcquireSlot() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void awaitTurn(String clientId) {
+        AtomicInteger clientQueued = queuedPerClient.compute(clientId, (id, count) -> {
+            AtomicInteger counter = count != null ? count : new AtomicInteger();
+            counter.incrementAndGet();
+            return counter;
+        });
+        if (clientQueued.get() > maxQueuedPerClient) {
+            leaveQueue(clientId);
+            throw new QueueFullException("Too many queued requests for client");
+        }
+
+        try {
+            Ticket ticket;
+            synchronized (queue) {
+                double start = Math.max(virtualTime, lastFinishTags.getOrDefault(clientId, 0.0));
+                lastFinishTags.put(clientId, start + 1.0 / weights.getOrDefault(clientId, 1.0));
+                ticket = new Ticket(start, sequence.incrementAndGet());
+                queue.add(ticket);
+                waiting.incrementAndGet();
+            }
+            // A slot may have been freed between the fast-path check and enqueueing
+            dispatch();
+
+            boolean granted;
+            try {
+                granted = ticket.latch.await(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                granted = false;
+            }
+            if (!granted && ticket.state.compareAndSet(WAITING, CANCELLED)) {
+                synchronized (queue) {
+                    if (queue.remove(ticket)) {
+                        waiting.decrementAndGet();
+                    }
+                }
+                throw new QueueFullException("Timed out waiting for a query slot");
+            }
+            // Either granted in time, or granted concurrently with the timeout: the slot is ours
+        } finally {
+            leaveQueue(clientId);
+        }
+    }
+
+    private void leaveQueue(String clientId) {
+        queuedPerClient.computeIfPresent(clientId, (id, count) -> count.decrementAndGet() == 0 ? null : count);
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        if (waiting.get() > 0) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Hands free slots to the waiting tickets with the smallest start tags.
+     */
+    private void dispatch() {
+        synchronized (queue) {
+            while (!queue.isEmpty() && tryAcquireSlot()) {
+                Ticket ticket = queue.poll();
+                waiting.decrementAndGet();
+                if (ticket.state.compareAndSet(WAITING, GRANTED)) {
+                    virtualTime = ticket.startTag();
+                    ticket.latch.countDown();
+                } else {
+                    inFlight.decrementAndGet();
+                }
+            }
+            if (queue.isEmpty()) {
+                // End of the busy period: start the next one with a clean slate
+                lastFinishTags.clear();
+                virtualTime = 0;
+            }
+        }
+    }
+
+    private static final class Ticket {
+        private final double startTag;
+        private final long sequence;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private Ticket(double startTag, long sequence) {
+            this.startTag = startTag;
+            this.sequence = sequence;
+        }
+
+        private double startTag() {
+            return startTag;
+        }
+
+        private long sequence() {
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.SQLMLProject.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based recognizer for common questions that can be answered without the LLM.
+ * Extracts slots (makes, statuses, price and mileage bounds, years, cities) and intent keywords,
+ * then only answers when every remaining word of the question is filler; anything else falls through.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IntentMatcher {
+
+    private static final String AMOUNT = "\\$?(\\d{1,3}(?:,\\d{3})+|\\d+(?:\\.\\d+)?)(k)?";
+    private static final String YEAR = "(19\\d\\d|20\\d\\d)";
+
+    private static final Pattern MILEAGE_OVER = Pattern.compile(
+            "\\b(?:over|above|more than|greater than) " + AMOUNT + " (?:miles|mi)\\b");
+    private static final Pattern MILEAGE_AT_LEAST = Pattern.compile(
+            "\\b(?:at least|no less than) " + AMOUNT + " (?:miles|mi)\\b");
+    private static final Pattern MILEAGE_UNDER = Pattern.compile(
+            "\\b(?:under|below|less than|fewer than) " + AMOUNT + " (?:miles|mi)\\b");
+    private static final Pattern MILEAGE_AT_MOST = Pattern.compile(
+            "\\b(?:at most|up to|no more than) " + AMOUNT + " (?:miles|mi)\\b");
+    private static final Pattern RANGE = Pattern.compile(
+            "\\b(?:between|from) " + AMOUNT + " (?:and|to) " + AMOUNT + "(?= |$)");
+    private static final Pattern PRICE_UNDER = Pattern.compile(
+            "\\b(?:under|below|less than|cheaper than) " + AMOUNT + "(?= |$)");
+    private static final Pattern PRICE_AT_MOST = Pattern.compile(
+            "\\b(?:up to|at most|no more than) " + AMOUNT + "(?= |$)");
+    private static final Pattern PRICE_OVER = Pattern.compile(
+            "\\b(?:over|above|more than|greater than|more expensive than) " + AMOUNT + "(?= |$)");
+    private static final Pattern PRICE_AT_LEAST = Pattern.compile(
+            "\\b(?:at least|no less than) " + AMOUNT + "(?= |$)");
+    private static final Pattern YEAR_AFTER = Pattern.compile("\\b(?:newer than|after) " + YEAR + "\\b");
+    private static final Pattern YEAR_SINCE = Pattern.compile("\\bsince " + YEAR + "\\b");
+    private static final Pattern YEAR_BEFORE = Pattern.compile("\\b(?:older than|before) " + YEAR + "\\b");
+    private static final Pattern YEAR_EXACT = Pattern.compile("\\b" + YEAR + "\\b");
+
+    private static final Pattern COUNT = Pattern.compile("\\b(?:count|how many|number of|total number of)\\b");
+    private static final Pattern AVERAGE = Pattern.compile("\\b(?:average|avg|mean)(?: price)?\\b");
+    private static final Pattern TOP_SELLING = Pattern.compile("\\b(?:top|best)[ -]selling (?:car )?makes?\\b");
+    private static final Pattern REVENUE = Pattern.compile("\\btotal (?:sales )?revenue\\b|\\btotal sales\\b");
+    private static final Pattern BY_MAKE = Pattern.compile("\\b(?:grouped by|by|per|for each|each) (?:make|brand)\\b");
+    private static final Pattern BY_CITY = Pattern.compile("\\b(?:grouped by|by|per|for each|each) city\\b");
+    private static final Pattern MOST_EXPENSIVE = Pattern.compile("\\b(?:most expensive|priciest|highest priced)\\b");
+    private static final Pattern CHEAPEST = Pattern.compile("\\b(?:cheapest|least expensive|lowest priced)\\b");
+
+    private static final Pattern CAR_SUBJECT = Pattern.compile("\\b(?:cars?|vehicles?|autos?|inventory)\\b");
+    private static final Pattern CUSTOMER_SUBJECT = Pattern.compile("\\b(?:customers?|clients?|buyers?)\\b");
+
+    private static final Pattern AVAILABLE = Pattern.compile("\\b(?:available|in stock|for sale)\\b");
+    private static final Pattern SOLD = Pattern.compile("\\bsold\\b");
+    private static final Pattern RESERVED = Pattern.compile("\\breserved\\b");
+
+    private static final Set<String> FILLER = Set.of(
+            "show", "list", "get", "find", "display", "give", "me", "all", "the", "a", "an", "any", "of",
+            "with", "that", "which", "what", "are", "is", "there", "do", "we", "have", "in", "from", "and",
+            "please", "our", "price", "prices", "priced", "cost", "costing", "made", "only", "who",
+            "live", "living", "located", "based", "currently", "right", "now", "model", "year");
+
+    private final IntentVocabulary vocabulary;
+
+    /**
+     * Tries to answer a question with a predefined query.
+     *
+     * @param question Natural language question
+     * @return SQL query if the question was recognized with full confidence
+     */
+    public Optional<String> match(String question) {
+        Slots slots = new Slots();
+        String text = normalize(question);
+
+        // Slots with numbers first, so their keywords are not mistaken for anything else
+        // Inclusive bounds before strict ones, so "no more than" is not read as "more than"
+        text = extract(text, MILEAGE_AT_LEAST, m -> {
+            slots.minMileage = slots.once(slots.minMileage, amount(m, 1));
+            slots.minMileageInclusive = true;
+        });
+        text = extract(text, MILEAGE_AT_MOST, m -> {
+            slots.maxMileage = slots.once(slots.maxMileage, amount(m, 1));
+            slots.maxMileageInclusive = true;
+        });
+        text = extract(text, MILEAGE_OVER, m -> slots.minMileage = slots.once(slots.minMileage, amount(m, 1)));
+        text = extract(text, MILEAGE_UNDER, m -> slots.maxMileage = slots.once(slots.maxMileage, amount(m, 1)));
+        text = extract(text, RANGE, m -> {
+            if (isYear(m, 1) && isYear(m, 3)) {
+                slots.minYear = slots.once(slots.minYear, Integer.parseInt(m.group(1)));
+                slots.maxYear = slots.once(slots.maxYear, Integer.parseInt(m.group(3)));
+            } else {
+                slots.minPrice = slots.once(slots.minPrice, amount(m, 1));
+                slots.maxPrice = slots.once(slots.maxPrice, amount(m, 3));
+                slots.minPriceInclusive = true;
+                slots.maxPriceInclusive = true;
+            }
+        });
+        text = extract(text, PRICE_AT_MOST, m -> {
+            slots.maxPrice = slots.once(slots.maxPrice, amount(m, 1));
+            slots.maxPriceInclusive = true;
+        });
+        text = extract(text, PRICE_AT_LEAST, m -> {
+            slots.minPrice = slots.once(slots.minPrice, amount(m, 1));
+            slots.minPriceInclusive = true;
+        });
+        text = extract(text, PRICE_UNDER, m -> slots.maxPrice = slots.once(slots.maxPrice, amount(m, 1)));
+        text = extract(text, PRICE_OVER, m -> slots.minPrice = slots.once(slots.minPrice, amount(m, 1)));
+        text = extract(text, YEAR_AFTER, m -> slots.minYear = slots.once(slots.minYear, Integer.parseInt(m.group(1)) + 1));
+        text = extract(text, YEAR_SINCE, m -> slots.minYear = slots.once(slots.minYear, Integer.parseInt(m.group(1))));
+        text = extract(text, YEAR_BEFORE, m -> slots.maxYear = slots.once(slots.maxYear, Integer.parseInt(m.group(1)) - 1));
+        text = extract(text, YEAR_EXACT, m -> {
+            slots.minYear = slots.once(slots.minYear, Integer.parseInt(m.group(1)));
+            slots.maxYear = slots.once(slots.maxYear, slots.minYear);
+        });
+
+        text = extract(text, TOP_SELLING, m -> slots.topSelling = true);
+        text = extract(text, REVENUE, m -> slots.revenue = true);
+        text = extract(text, COUNT, m -> slots.count = true);
+        text = extract(text, AVERAGE, m -> slots.average = true);
+        text = extract(text, BY_MAKE, m -> slots.byMake = true);
+        text = extract(text, BY_CITY, m -> slots.byCity = true);
+        text = extract(text, MOST_EXPENSIVE, m -> slots.mostExpensive = true);
+        text = extract(text, CHEAPEST, m -> slots.cheapest = true);
+
+        text = extract(text, AVAILABLE, m -> slots.statuses.add("available"));
+        text = extract(text, SOLD, m -> slots.statuses.add("sold"));
+        text = extract(text, RESERVED, m -> slots.statuses.add("reserved"));
+
+        text = vocabulary.getMakes().extract(text, slots.makes);
+        text = vocabulary.getCities().extract(text, slots.cities);
+
+        text = extract(text, CAR_SUBJECT, m -> slots.carSubject = true);
+        text = extract(text, CUSTOMER_SUBJECT, m -> slots.customerSubject = true);
+
+        if (slots.conflicting) {
+            log.debug("Intent fast path declined, conflicting values in: {}", question);
+            return Optional.empty();
+        }
+        for (String word : text.trim().split(" +")) {
+            // "or" is only safe between values of one slot ("Toyota or Honda"); across filters it would be ANDed
+            if (word.equals("or") && slots.orJoinsOneSlot()) {
+                continue;
+            }
+            if (!word.isEmpty() && !FILLER.contains(word)) {
+                log.debug("Intent fast path declined, unrecognized word '{}' in: {}", word, question);
+                return Optional.empty();
+            }
+        }
+
+        return Optional.ofNullable(buildSql(slots));
+    }
+
+    private String buildSql(Slots s) {
+        boolean carFilters = !s.makes.isEmpty() || !s.statuses.isEmpty() || s.minPrice != null || s.maxPrice != null
+                || s.minYear != null || s.maxYear != null || s.minMileage != null || s.maxMileage != null;
+        boolean carIntent = s.carSubject || carFilters || s.byMake || s.mostExpensive || s.cheapest;
+        boolean customerIntent = s.customerSubject || !s.cities.isEmpty() || s.byCity;
+
+        if (s.topSelling || s.revenue) {
+            if (carFilters || customerIntent || s.count || s.average || s.byMake || s.mostExpensive || s.cheapest
+                    || (s.topSelling && s.revenue)) {
+                return null;
+            }
+            if (s.topSelling) {
+                return "SELECT c.make, COUNT(s.id) as sales_count, SUM(s.sale_price) as total_revenue "
+                        + "FROM Sale s JOIN Car c ON s.car_id = c.id GROUP BY c.make ORDER BY sales_count DESC";
+            }
+            return "SELECT SUM(sale_price) as total_revenue FROM Sale";
+        }
+
+        if (carIntent && !customerIntent) {
+            // "cars sold in 2024" is about sale dates, not model years
+            if (s.statuses.contains("sold") && (s.minYear != null || s.maxYear != null)) {
+                return null;
+            }
+            if ((s.mostExpensive && s.cheapest) || ((s.mostExpensive || s.cheapest) && (s.count || s.average))) {
+                return null;
+            }
+
+            String where = carWhere(s);
+            if (s.byMake) {
+                if (s.count && !s.average) {
+                    return "SELECT make, COUNT(*) as count FROM Car" + where + " GROUP BY make ORDER BY count DESC";
+                }
+                if (s.average && !s.count) {
+                    return "SELECT make, AVG(price) as average_price FROM Car" + where
+                            + " GROUP BY make ORDER BY average_price DESC";
+                }
+                return null;
+            }
+            if (s.count && s.average) {
+                return null;
+            }
+            if (s.count) {
+                return "SELECT COUNT(*) as count FROM Car" + where;
+            }
+            if (s.average) {
+                return "SELECT AVG(price) as average_price FROM Car" + where;
+            }
+            if (s.mostExpensive) {
+                return "SELECT * FROM Car" + where + " ORDER BY price DESC LIMIT 1";
+            }
+            if (s.cheapest) {
+                return "SELECT * FROM Car" + where + " ORDER BY price ASC LIMIT 1";
+            }
+            return "SELECT * FROM Car" + where + " ORDER BY price";
+        }
+
+        if (customerIntent && !carIntent && !s.average) {
+            String where = s.cities.isEmpty() ? "" : " WHERE " + in("city", s.cities);
+            if (s.byCity) {
+                return s.count
+                        ? "SELECT city, COUNT(*) as customer_count FROM Customer" + where
+                                + " GROUP BY city ORDER BY customer_count DESC"
+                        : null;
+            }
+            if (s.count) {
+                return "SELECT COUNT(*) as customer_count FROM Customer" + where;
+            }
+            return "SELECT * FROM Customer" + where + " ORDER BY name";
+        }
+
+        return null;
+    }
+
+    private String carWhere(Slots s) {
+        List<String> conditions = new ArrayList<>();
+        if (!s.makes.isEmpty()) {
+            conditions.add(in("make", s.makes));
+        }
+        if (!s.statuses.isEmpty()) {
+            conditions.add(in("status", s.statuses));
+        }
+        if (s.minPrice != null && s.maxPrice != null && s.minPriceInclusive && s.maxPriceInclusive) {
+            conditions.add("price BETWEEN " + s.minPrice.toPlainString() + " AND " + s.maxPrice.toPlainString());
+        } else {
+            if (s.minPrice != null) {
+                conditions.add("price " + (s.minPriceInclusive ? ">= " : "> ") + s.minPrice.toPlainString());
+            }
+            if (s.maxPrice != null) {
+                conditions.add("price " + (s.maxPriceInclusive ? "<= " : "< ") + s.maxPrice.toPlainString());
+            }
+        }
+        if (s.minYear != null && s.minYear.equals(s.maxYear)) {
+            conditions.add("year = " + s.minYear);
+        } else {
+            if (s.minYear != null) {
+                conditions.add("year >= " + s.minYear);
+            }
+            if (s.maxYear != null) {
+                conditions.add("year <= " + s.maxYear);
+            }
+        }
+        if (s.minMileage != null) {
+            conditions.add("mileage " + (s.minMileageInclusive ? ">= " : "> ") + s.minMileage.toPlainString());
+        }
+        if (s.maxMileage != null) {
+            conditions.add("mileage " + (s.maxMileageInclusive ? "<= " : "< ") + s.maxMileage.toPlainString());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String in(String column, List<String> values) {
+        if (values.size() == 1) {
+            return column + " = " + quote(values.get(0));
+        }
+        List<String> quoted = values.stream().map(IntentMatcher::quote).toList();
+        return column + " IN (" + String.join(", ", quoted) + ")";
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String normalize(String question) {
+        String text = question.toLowerCase()
+                .replaceAll("[?!;:()\"]", " ")
+                .replaceAll("(?<!\\d),|,(?!\\d{3})", " ")
+                .replaceAll("\\.(?!\\d)", " ")
+                .replaceAll("\\$ +", "\\$")
+                .replaceAll("\\s+", " ");
+        return " " + text.trim() + " ";
+    }
+
+    private static String extract(String text, Pattern pattern, Consumer<Matcher> onMatch) {
+        Matcher matcher = pattern.matcher(text);
+        StringBuilder remaining = new StringBuilder();
+        while (matcher.find()) {
+            onMatch.accept(matcher);
+            matcher.appendReplacement(remaining, " ");
+        }
+        matcher.appendTail(remaining);
+        return remaining.toString();
+    }
+
+    private static boolean isYear(Matcher m, int group) {
+        return m.group(group).matches("(19|20)\\d\\d") && m.group(group + 1) == null
+                && !m.group().contains("$");
+    }
+
+    private static BigDecimal amount(Matcher m, int group) {
+        BigDecimal value = new BigDecimal(m.group(group).replace(",", ""));
+        return m.group(group + 1) != null ? value.multiply(BigDecimal.valueOf(1000)) : value;
+    }
+
+    private static class Slots {
+        private final List<String> makes = new ArrayList<>();
+        private final List<String> statuses = new ArrayList<>();
+        private final List<String> cities = new ArrayList<>();
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private boolean minPriceInclusive;
+        private boolean maxPriceInclusive;
+        private Integer minYear;
+        private Integer maxYear;
+        private BigDecimal minMileage;
+        private BigDecimal maxMileage;
+        private boolean minMileageInclusive;
+        private boolean maxMileageInclusive;
+        private boolean count;
+        private boolean average;
+        private boolean byMake;
+        private boolean byCity;
+        private boolean mostExpensive;
+        private boolean cheapest;
+        private boolean topSelling;
+        private boolean revenue;
+        private boolean carSubject;
+        private boolean customerSubject;
+        private boolean conflicting;
+
+        private boolean hasBounds() {
+            return minPrice != null || maxPrice != null || minYear != null || maxYear != null
+                    || minMileage != null || maxMileage != null;
+        }
+
+        /**
+         * Whether an "or" can only be joining values of one slot: a single multi-value slot holds two or more
+         * values and no other filter is set.
+         */
+        private boolean orJoinsOneSlot() {
+            int populated = (makes.isEmpty() ? 0 : 1) + (statuses.isEmpty() ? 0 : 1) + (cities.isEmpty() ? 0 : 1);
+            int values = makes.size() + statuses.size() + cities.size();
+            return populated == 1 && values >= 2 && !hasBounds();
+        }
+
+        /**
+         * Returns the new value for a single-valued slot, flagging the question if it was already set.
+         */
+        private <T> T once(T current, T value) {
+            if (current != null) {
+                conflicting = true;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.SQLMLProject.service;
+
+import com.example.SQLMLProject.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Known slot values for the intent matcher, read from the database and compiled into match patterns.
+ * Cached until the underlying table changes, so patterns are only rebuilt when the vocabulary does.
+ */
+@Service
+@RequiredArgsConstructor
+public class IntentVocabulary {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Get all car makes in the inventory.
+     */
+    @Cacheable(CacheConfig.CAR_MAKES)
+    public VocabularyTerms getMakes() {
+        // Makes also match in the plural ("Toyotas")
+        return VocabularyTerms.of(jdbcTemplate.queryForList("SELECT DISTINCT make FROM Car", String.class), "s?");
+    }
+
+    /**
+     * Get all customer cities.
+     */
+    @Cacheable(CacheConfig.CUSTOMER_CITIES)
+    public VocabularyTerms getCities() {
+        return VocabularyTerms.of(
+                jdbcTemplate.queryForList("SELECT DISTINCT city FROM Customer WHERE city IS NOT NULL", String.class), "");
+    }
+}
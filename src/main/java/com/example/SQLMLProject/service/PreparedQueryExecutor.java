@@ -0,0 +1,205 @@
+package com.example.SQLMLProject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGStatement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executes generated SQL as parameterized statements so Postgres can reuse plans across literal variants.
+ * Statements are grouped by shape (see {@link SqlParameterizer}); a bounded LRU of known shapes tracks
+ * reuse and the planning time each shape costs, and pgjdbc keeps the matching server-side prepared
+ * statements in its own per-connection cache.
+ */
+@Service
+@Slf4j
+public class PreparedQueryExecutor {
+
+    private static final Pattern PLANNING_TIME = Pattern.compile("Planning Time: ([0-9.]+) ms");
+
+    // Type errors a bind parameter can cause where the inline literal would not:
+    // grouping_error, datatype_mismatch, indeterminate_datatype, undefined_function
+    private static final Set<String> PARAMETER_TYPE_ERRORS = Set.of("42803", "42804", "42P18", "42883");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, ShapeStats> shapes;
+
+    private final Counter newShapeExecutions;
+    private final Counter reusedShapeExecutions;
+    private final Counter literalFallbacks;
+    private final Counter planTimeSaved;
+
+    @Value("${query.plan-cache.measure-planning:true}")
+    private boolean measurePlanning;
+
+    public PreparedQueryExecutor(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${query.plan-cache.max-shapes:256}") int maxShapes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shapes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ShapeStats> eldest) {
+                return size() > maxShapes;
+            }
+        };
+
+        this.newShapeExecutions = Counter.builder("sql.shape.executions")
+                .tag("plan", "new")
+                .description("Generated queries executed with a shape not seen before")
+                .register(meterRegistry);
+        this.reusedShapeExecutions = Counter.builder("sql.shape.executions")
+                .tag("plan", "reused")
+                .description("Generated queries executed with an already prepared shape")
+                .register(meterRegistry);
+        this.literalFallbacks = Counter.builder("sql.shape.literal.fallbacks")
+                .description("Generated queries that had to run with inline literals")
+                .register(meterRegistry);
+        this.planTimeSaved = Counter.builder("sql.shape.plan.time.saved.upper.bound")
+                .baseUnit("milliseconds")
+                .description("Planning time of reused shapes; an upper bound on the time saved, since the "
+                        + "connection may not hold the prepared statement yet or Postgres may still re-plan it")
+                .register(meterRegistry);
+        Gauge.builder("sql.shape.cache.size", this, executor -> executor.cachedShapes())
+                .description("Statement shapes currently tracked")
+                .register(meterRegistry);
+        Gauge.builder("sql.shape.reuse.ratio", this, executor -> executor.reuseRatio())
+                .description("Fraction of generated queries that reused a prepared shape")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executes a validated SELECT query.
+     *
+     * @param sql SQL query with inline literals
+     * @return List of result rows as maps
+     */
+    public List<Map<String, Object>> queryForList(String sql) {
+        SqlParameterizer.ParameterizedSql parameterized = SqlParameterizer.parameterize(sql);
+        if (parameterized == null) {
+            literalFallbacks.increment();
+            return jdbcTemplate.queryForList(sql);
+        }
+
+        ShapeStats stats;
+        boolean reused;
+        synchronized (shapes) {
+            stats = shapes.get(parameterized.shape());
+            reused = stats != null;
+            if (!reused) {
+                stats = new ShapeStats();
+                shapes.put(parameterized.shape(), stats);
+            }
+        }
+
+        if (stats.literalOnly) {
+            literalFallbacks.increment();
+            return jdbcTemplate.queryForList(sql);
+        }
+
+        if (reused) {
+            reusedShapeExecutions.increment();
+            planTimeSaved.increment(stats.planningMillis);
+        } else {
+            newShapeExecutions.increment();
+            log.debug("New statement shape: {}", parameterized.shape());
+            if (measurePlanning) {
+                stats.planningMillis = measurePlanningMillis(sql);
+            }
+        }
+
+        try {
+            return jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(parameterized.shape());
+                // Use a server-side prepared statement from the first execution
+                ps.unwrap(PGStatement.class).setPrepareThreshold(1);
+                bind(ps, parameterized.parameters());
+                return ps;
+            }, new ColumnMapRowMapper());
+        } catch (DataAccessException e) {
+            // Some shapes only type-check with their literals inline (e.g. an expression repeated in GROUP BY);
+            // any other failure is not caused by parameterization and would fail with literals too
+            if (!isParameterTypeError(e)) {
+                throw e;
+            }
+            log.debug("Parameterized execution failed, using inline literals for shape: {}", parameterized.shape(), e);
+            stats.literalOnly = true;
+            literalFallbacks.increment();
+            return jdbcTemplate.queryForList(sql);
+        }
+    }
+
+    private static boolean isParameterTypeError(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && PARAMETER_TYPE_ERRORS.contains(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void bind(PreparedStatement ps, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            if (value instanceof Integer intValue) {
+                ps.setInt(i + 1, intValue);
+            } else if (value instanceof BigDecimal decimalValue) {
+                ps.setBigDecimal(i + 1, decimalValue);
+            } else {
+                // Unspecified type: Postgres infers it from context, exactly as for a quoted literal
+                ps.setObject(i + 1, value, Types.OTHER);
+            }
+        }
+    }
+
+    /**
+     * Asks the planner how long a shape takes to plan; this is what each reuse avoids.
+     */
+    private double measurePlanningMillis(String sql) {
+        try {
+            List<String> lines = jdbcTemplate.queryForList("EXPLAIN (SUMMARY) " + sql, String.class);
+            for (String line : lines) {
+                Matcher matcher = PLANNING_TIME.matcher(line);
+                if (matcher.find()) {
+                    return Double.parseDouble(matcher.group(1));
+                }
+            }
+        } catch (DataAccessException e) {
+            log.debug("Could not measure planning time: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    private int cachedShapes() {
+        synchronized (shapes) {
+            return shapes.size();
+        }
+    }
+
+    private double reuseRatio() {
+        double reused = reusedShapeExecutions.count();
+        double total = reused + newShapeExecutions.count();
+        return total == 0 ? 0 : reused / total;
+    }
+
+    private static class ShapeStats {
+        private volatile double planningMillis;
+        private volatile boolean literalOnly;
+    }
+}
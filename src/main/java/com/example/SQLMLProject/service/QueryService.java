@@ -2,16 +2,19 @@ package com.example.SQLMLProject.service;
 
 import com.example.SQLMLProject.dto.QueryRequest;
 import com.example.SQLMLProject.dto.QueryResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Service for converting natural language questions to SQL queries using OpenAI.
@@ -22,8 +25,12 @@ import java.util.Map;
 @Slf4j
 public class QueryService {
 
-    private final ChatClient chatClient;
-    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<ChatClient> chatClientProvider;
+    private final PreparedQueryExecutor preparedQueryExecutor;
+    private final IntentMatcher intentMatcher;
+    private final MeterRegistry meterRegistry;
+    private final ClientRateLimiter clientRateLimiter;
+    private final ApproximateQueryService approximateQueryService;
 
     // Database schema context for the LLM
     private static final String SCHEMA_CONTEXT = """
@@ -50,16 +57,20 @@ public class QueryService {
     /**
      * Processes a natural language query and returns SQL with results.
      *
-     * @param request QueryRequest containing the natural language question
+     * @param request  QueryRequest containing the natural language question
+     * @param clientId API key or IP of the caller, charged for LLM calls and database time
      * @return QueryResponse with generated SQL and query results
      */
-    public QueryResponse processQuery(QueryRequest request) {
+    public QueryResponse processQuery(QueryRequest request, String clientId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String path = "llm";
         try {
             log.info("Processing query: {}", request.getQuestion());
 
-            // Step 1: Generate SQL from natural language using OpenAI
-            String generatedSql = generateSqlFromNaturalLanguage(request.getQuestion());
-            log.info("Generated SQL: {}", generatedSql);
+            // Step 1: Answer common questions locally, otherwise generate SQL using OpenAI
+            GeneratedSql generated = generateSql(request.getQuestion(), clientId);
+            path = generated.path();
+            String generatedSql = generated.sql();
 
             // Step 2: Validate the SQL
             if (!isValidSelectQuery(generatedSql)) {
@@ -67,16 +78,93 @@ public class QueryService {
                 return new QueryResponse(generatedSql, null, "Invalid SQL: Only SELECT queries are allowed");
             }
 
-            // Step 3: Execute the SQL
-            List<Map<String, Object>> results = executeSql(generatedSql);
+            // Step 3: Execute the SQL, on a sample if an approximate answer was requested
+            long dbStart = System.nanoTime();
+            Optional<ApproximateQueryService.SampledQuery> sampled = Optional.empty();
+            List<Map<String, Object>> results;
+            List<Map<String, Double>> errorBounds = null;
+            try {
+                if (request.isApproximate()) {
+                    sampled = approximateQueryService.rewrite(generatedSql);
+                }
+                if (sampled.isPresent()) {
+                    try {
+                        results = executeSql(sampled.get().sql());
+                        errorBounds = approximateQueryService.estimate(sampled.get(), results);
+                    } catch (RuntimeException e) {
+                        log.warn("Sampled query failed, running exactly: {}", e.getMessage());
+                        sampled = Optional.empty();
+                        results = executeSql(generatedSql);
+                    }
+                } else {
+                    results = executeSql(generatedSql);
+                }
+            } finally {
+                clientRateLimiter.recordDbTime(clientId, (System.nanoTime() - dbStart) / 1_000_000);
+            }
             log.info("Query executed successfully, returned {} rows", results.size());
 
-            return new QueryResponse(generatedSql, results, null);
+            QueryResponse response = new QueryResponse(generatedSql, results, null);
+            if (request.isApproximate()) {
+                meterRegistry.counter("nl.query.approximate", "sampled", String.valueOf(sampled.isPresent())).increment();
+                response.setApproximate(sampled.isPresent());
+                response.setSamplingRate(sampled.map(ApproximateQueryService.SampledQuery::samplingRate).orElse(1.0));
+                if (errorBounds != null) {
+                    response.setConfidenceLevel(ApproximateQueryService.CONFIDENCE_LEVEL);
+                    response.setErrorBounds(errorBounds);
+                }
+            }
+            return response;
 
         } catch (Exception e) {
             log.error("Error processing query", e);
             return new QueryResponse(null, null, "Error: " + e.getMessage());
+        } finally {
+            // Hit rate is the intent share of nl.query.latency counts
+            sample.stop(meterRegistry.timer("nl.query.latency", "path", path));
+        }
+    }
+
+    /**
+     * Generates and validates the SQL for a question without executing it, for bulk export.
+     *
+     * @param request  QueryRequest containing the natural language question
+     * @param clientId API key or IP of the caller, charged for LLM calls
+     * @return Validated SELECT query
+     * @throws IllegalArgumentException if the generated SQL is not a safe SELECT query
+     */
+    public String generateExportSql(QueryRequest request, String clientId) {
+        String generatedSql = generateSql(request.getQuestion(), clientId).sql();
+        if (!isValidSelectQuery(generatedSql)) {
+            throw new IllegalArgumentException("Invalid SQL: Only SELECT queries are allowed");
+        }
+        return generatedSql;
+    }
+
+    private record GeneratedSql(String sql, String path) {
+    }
+
+    /**
+     * Answers common questions with the intent matcher and falls back to OpenAI for the rest.
+     *
+     * @param question Natural language question
+     * @param clientId API key or IP of the caller; its reserved LLM call is refunded on an intent match
+     * @return Generated SQL and the path ("intent" or "llm") that produced it
+     */
+    private GeneratedSql generateSql(String question, String clientId) {
+        Timer.Sample matchSample = Timer.start(meterRegistry);
+        Optional<String> matchedSql = intentMatcher.match(question);
+        matchSample.stop(meterRegistry.timer("nl.query.intent.match", "hit", String.valueOf(matchedSql.isPresent())));
+
+        GeneratedSql generated;
+        if (matchedSql.isPresent()) {
+            clientRateLimiter.refundLlmCall(clientId);
+            generated = new GeneratedSql(matchedSql.get(), "intent");
+        } else {
+            generated = new GeneratedSql(generateSqlFromNaturalLanguage(question), "llm");
         }
+        log.info("Generated SQL ({}): {}", generated.path(), generated.sql());
+        return generated;
     }
 
     /**
@@ -89,7 +177,7 @@ public class QueryService {
         PromptTemplate promptTemplate = new PromptTemplate(SCHEMA_CONTEXT);
         Prompt prompt = promptTemplate.create(Map.of("question", question));
 
-        String response = chatClient.prompt(prompt)
+        String response = chatClientProvider.getObject().prompt(prompt)
                 .call()
                 .content();
 
@@ -147,13 +235,14 @@ public class QueryService {
 
     /**
      * Executes the SQL query against the database.
+     * Literals are sent as bind parameters so equally shaped queries reuse a prepared plan.
      *
      * @param sql SQL query to execute
      * @return List of result rows as maps
      */
     private List<Map<String, Object>> executeSql(String sql) {
         try {
-            return jdbcTemplate.queryForList(sql);
+            return preparedQueryExecutor.queryForList(sql);
         } catch (Exception e) {
             log.error("Error executing SQL: {}", sql, e);
             throw new RuntimeException("Database query failed: " + e.getMessage(), e);
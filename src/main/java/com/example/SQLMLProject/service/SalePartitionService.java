@@ -0,0 +1,160 @@
+package com.example.SQLMLProject.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly range partitions of the sale table.
+ * Partitions for the coming months are created ahead of time, and partitions older than the
+ * retention period are detached and either moved to the sale_archive schema or dropped.
+ * Runs on startup and then daily; only one node does the work at a time.
+ * On PostgreSQL 14+ partitions are detached CONCURRENTLY, which only takes SHARE UPDATE EXCLUSIVE on sale;
+ * older servers fall back to a plain DETACH, which holds ACCESS EXCLUSIVE on sale (blocking all reads and
+ * writes) until it completes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalePartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("sale_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String ARCHIVE_SCHEMA = "sale_archive";
+    private static final String LOCK_KEY = "hashtext('sale_partition_maintenance')";
+    private static final int CONCURRENT_DETACH_MIN_VERSION = 14;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    @Value("${sale.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sale.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${sale.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${sale.partitioning.archive-mode:detach}")
+    private String archiveMode;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Creates upcoming partitions and archives expired ones.
+     */
+    @Scheduled(cron = "${sale.partitioning.cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // DETACH ... CONCURRENTLY cannot run in a transaction block, so each statement auto-commits on one
+            // pinned connection, guarded by a session-level advisory lock instead of a transaction-level one
+            List<String> archived = jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+                JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                Boolean locked = session.queryForObject("SELECT pg_try_advisory_lock(" + LOCK_KEY + ")", Boolean.class);
+                if (!Boolean.TRUE.equals(locked)) {
+                    log.debug("Sale partition maintenance is running on another node");
+                    return List.of();
+                }
+                try {
+                    if (!isPartitioned(session)) {
+                        log.warn("Table sale is not partitioned; run schema.sql to enable monthly partitions");
+                        return List.of();
+                    }
+                    createFuturePartitions(session, YearMonth.now());
+                    boolean concurrent = connection.getMetaData().getDatabaseMajorVersion() >= CONCURRENT_DETACH_MIN_VERSION;
+                    return retentionMonths > 0
+                            ? archiveExpiredPartitions(session, YearMonth.now().minusMonths(retentionMonths), concurrent)
+                            : List.of();
+                } finally {
+                    session.queryForObject("SELECT pg_advisory_unlock(" + LOCK_KEY + ")", Boolean.class);
+                }
+            });
+            if (archived != null && !archived.isEmpty()) {
+                cacheInvalidationService.publish("sale");
+            }
+        } catch (RuntimeException e) {
+            log.error("Sale partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned(JdbcTemplate session) {
+        Integer count = session.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('sale')", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private void createFuturePartitions(JdbcTemplate session, YearMonth currentMonth) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            String name = "sale_" + month.format(NAME_FORMAT);
+            if (session.queryForObject("SELECT to_regclass(?) IS NULL", Boolean.class, name)) {
+                session.execute("CREATE TABLE " + name + " PARTITION OF sale FOR VALUES FROM ('"
+                        + from + "') TO ('" + to + "')");
+                log.info("Created sale partition {} for [{}, {})", name, from, to);
+            }
+        }
+    }
+
+    /**
+     * Detaches every partition whose month ends on or before the cutoff month.
+     * A concurrent detach interrupted on an earlier run leaves the partition pending; it is finalized instead.
+     */
+    private List<String> archiveExpiredPartitions(JdbcTemplate session, YearMonth cutoff, boolean concurrent) {
+        List<Map<String, Object>> partitions = session.queryForList(
+                "SELECT c.relname, " + (concurrent ? "i.inhdetachpending" : "false") + " AS detach_pending " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'sale'::regclass ORDER BY c.relname");
+
+        List<String> archived = new ArrayList<>();
+        for (Map<String, Object> row : partitions) {
+            String partition = (String) row.get("relname");
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+
+            String detachMode = Boolean.TRUE.equals(row.get("detach_pending")) ? " FINALIZE"
+                    : concurrent ? " CONCURRENTLY" : "";
+            session.execute("ALTER TABLE sale DETACH PARTITION " + partition + detachMode);
+            if ("drop".equalsIgnoreCase(archiveMode)) {
+                session.execute("DROP TABLE " + partition);
+                log.info("Dropped expired sale partition {}", partition);
+            } else {
+                session.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+                session.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+                log.info("Archived expired sale partition {} to schema {}", partition, ARCHIVE_SCHEMA);
+            }
+            archived.add(partition);
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.SQLMLProject.service;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL into a fingerprint that groups statements differing only in literal values.
+ * Built on {@link SqlParameterizer#normalize(String)}: every literal and placeholder becomes "?",
+ * comments are dropped and whitespace is collapsed; the fingerprint is then lower-cased and
+ * IN lists of any length collapse to one form.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin ?\\(\\?(?: ?, ?\\?)*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of a statement.
+     *
+     * @param sql Raw SQL text
+     * @return Normalized statement text
+     */
+    public static String of(String sql) {
+        String normalized = SqlParameterizer.normalize(sql);
+        if (normalized == null) {
+            // Malformed SQL: group by its text
+            normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        }
+        String fingerprint = normalized.toLowerCase(Locale.ROOT);
+        return IN_LIST.matcher(fingerprint).replaceAll("in (?, ...)");
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.SQLMLProject.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts literals from generated SQL into JDBC bind parameters.
+ * Only literals in a value position (right of a comparison, inside an IN list, BETWEEN bounds,
+ * LIKE patterns, LIMIT/OFFSET) are replaced; literals that shape the query such as
+ * {@code DATE_TRUNC('month', ...)}, {@code GROUP BY 1} or {@code INTERVAL '1 day'} are kept.
+ * The resulting SQL, with whitespace and comments normalized, is the statement shape.
+ */
+public final class SqlParameterizer {
+
+    private static final Set<String> VALUE_OPERATORS = Set.of(
+            "=", "<>", "!=", "<", ">", "<=", ">=", "LIKE", "ILIKE", "LIMIT", "OFFSET");
+
+    private SqlParameterizer() {
+    }
+
+    /**
+     * Statement shape with its extracted bind parameters.
+     * String parameters are bound with an unspecified type so Postgres infers it as it would for a literal.
+     */
+    public record ParameterizedSql(String shape, List<Object> parameters) {
+    }
+
+    /**
+     * Parameterizes the given SQL.
+     *
+     * @param sql Validated SELECT query
+     * @return Parameterized statement, or null if the SQL uses syntax that cannot be parameterized safely
+     */
+    public static ParameterizedSql parameterize(String sql) {
+        return parameterize(sql, false);
+    }
+
+    /**
+     * Normalized text of any statement, for grouping statements that differ only in literal values.
+     * Unlike the execution shape, every literal becomes {@code ?}: string, numeric and dollar-quoted constants,
+     * the value of typed literals such as {@code INTERVAL '7 days'}, and constants in the select list or in
+     * arithmetic. Existing JDBC ({@code ?}) and positional ({@code $1}) placeholders are kept as {@code ?},
+     * so statements issued by JPA are normalized too.
+     *
+     * @param sql SQL statement
+     * @return Normalized statement, or null if the SQL cannot be tokenized (e.g. unterminated quotes)
+     */
+    public static String normalize(String sql) {
+        ParameterizedSql parameterized = parameterize(sql, true);
+        return parameterized != null ? parameterized.shape() : null;
+    }
+
+    private static ParameterizedSql parameterize(String sql, boolean normalize) {
+        StringBuilder out = new StringBuilder(sql.length());
+        List<Object> parameters = new ArrayList<>();
+
+        String previous = "";
+        int depth = 0;
+        int inListDepth = -1;
+        // 0 = none, 1 = expecting lower bound, 2 = expecting AND, 3 = expecting upper bound
+        int betweenState = 0;
+
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                appendSpace(out);
+                i++;
+            } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                appendSpace(out);
+            } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                appendSpace(out);
+            } else if (normalize && c == '$' && (i + 1 >= n || !Character.isDigit(sql.charAt(i + 1)))) {
+                // Dollar-quoted string: $$...$$ or $tag$...$tag$
+                int tagEnd = i + 1;
+                while (tagEnd < n && (Character.isLetterOrDigit(sql.charAt(tagEnd)) || sql.charAt(tagEnd) == '_')) {
+                    tagEnd++;
+                }
+                if (tagEnd >= n || sql.charAt(tagEnd) != '$') {
+                    return null;
+                }
+                String tag = sql.substring(i, tagEnd + 1);
+                int end = sql.indexOf(tag, tagEnd + 1);
+                if (end < 0) {
+                    return null;
+                }
+                i = end + tag.length();
+                out.append('?');
+                betweenState = advanceBetween(betweenState);
+                previous = "'";
+            } else if (c == '?' || c == '$') {
+                if (!normalize || (c == '$' && (i + 1 >= n || !Character.isDigit(sql.charAt(i + 1))))) {
+                    // Would clash with JDBC placeholders or dollar quoting
+                    return null;
+                }
+                i++;
+                while (c == '$' && i < n && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+                out.append('?');
+                betweenState = advanceBetween(betweenState);
+                previous = "?";
+            } else if (c == '\'') {
+                int start = i;
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        return null;
+                    }
+                    char ch = sql.charAt(i++);
+                    if (ch == '\'') {
+                        if (i < n && sql.charAt(i) == '\'') {
+                            value.append('\'');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(ch);
+                    }
+                }
+                // E'...', U&'...' and similar prefixed literals are kept verbatim
+                boolean prefixed = start > 0 && Character.isLetterOrDigit(sql.charAt(start - 1));
+                if (normalize || (!prefixed && isValuePosition(previous, depth, inListDepth, betweenState))) {
+                    out.append('?');
+                    parameters.add(value.toString());
+                } else {
+                    out.append(sql, start, i);
+                }
+                betweenState = advanceBetween(betweenState);
+                previous = "'";
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                out.append(sql, i, end + 1);
+                i = end + 1;
+                betweenState = advanceBetween(betweenState);
+                previous = "\"";
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(sql.charAt(i + 1)))) {
+                int start = i;
+                boolean decimal = false;
+                while (i < n && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+                if (i < n && sql.charAt(i) == '.') {
+                    decimal = true;
+                    i++;
+                    while (i < n && Character.isDigit(sql.charAt(i))) {
+                        i++;
+                    }
+                }
+                if (i < n && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+                    decimal = true;
+                    i++;
+                    if (i < n && (sql.charAt(i) == '+' || sql.charAt(i) == '-')) {
+                        i++;
+                    }
+                    while (i < n && Character.isDigit(sql.charAt(i))) {
+                        i++;
+                    }
+                }
+                String literal = sql.substring(start, i);
+                if (normalize || isValuePosition(previous, depth, inListDepth, betweenState)) {
+                    out.append('?');
+                    parameters.add(toNumber(literal, decimal));
+                } else {
+                    out.append(literal);
+                }
+                betweenState = advanceBetween(betweenState);
+                previous = "0";
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                String word = sql.substring(start, i);
+                String upper = word.toUpperCase();
+                out.append(word);
+
+                if (upper.equals("BETWEEN")) {
+                    betweenState = 1;
+                } else if (upper.equals("AND") && betweenState == 2) {
+                    betweenState = 3;
+                } else if (!upper.equals("SYMMETRIC")) {
+                    betweenState = advanceBetween(betweenState);
+                }
+                previous = upper;
+            } else if (c == '(') {
+                depth++;
+                if (previous.equals("IN")) {
+                    inListDepth = depth;
+                }
+                out.append(c);
+                previous = "(";
+                i++;
+            } else if (c == ')') {
+                if (depth == inListDepth) {
+                    inListDepth = -1;
+                }
+                depth--;
+                out.append(c);
+                previous = ")";
+                i++;
+            } else if (c == '<' || c == '>' || c == '=' || c == '!') {
+                int start = i;
+                while (i < n && "<>=!".indexOf(sql.charAt(i)) >= 0) {
+                    i++;
+                }
+                previous = sql.substring(start, i);
+                out.append(previous);
+            } else if (c == ';') {
+                // Trailing semicolons do not change the shape
+                i++;
+            } else {
+                out.append(c);
+                previous = String.valueOf(c);
+                i++;
+            }
+        }
+
+        return new ParameterizedSql(out.toString().trim(), parameters);
+    }
+
+    private static boolean isValuePosition(String previous, int depth, int inListDepth, int betweenState) {
+        if (VALUE_OPERATORS.contains(previous)) {
+            return true;
+        }
+        if (depth == inListDepth && (previous.equals("(") || previous.equals(","))) {
+            return true;
+        }
+        return betweenState == 1 || betweenState == 3;
+    }
+
+    private static int advanceBetween(int betweenState) {
+        return switch (betweenState) {
+            case 1 -> 2;
+            case 3 -> 0;
+            default -> betweenState;
+        };
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+
+    private static Object toNumber(String literal, boolean decimal) {
+        if (!decimal) {
+            try {
+                return Integer.parseInt(literal);
+            } catch (NumberFormatException e) {
+                // Fall through to a wider type
+            }
+        }
+        return new BigDecimal(literal);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.SQLMLProject.service;
+
+import com.example.SQLMLProject.dto.SqlStatementStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-fingerprint JDBC statistics collected by the profiling DataSource.
+ * All counters are LongAdders in a ConcurrentHashMap, so recording never takes a lock;
+ * statements slower than the threshold are written (sampled) to the "sql.slow" logger.
+ */
+public class SqlProfiler {
+
+    private static final Logger SLOW_LOG = LoggerFactory.getLogger("sql.slow");
+
+    private static final String OVERFLOW_FINGERPRINT = "<other>";
+    private static final int MAX_CACHED_SQL = 10_000;
+
+    // Histogram bucket upper bounds in microseconds; the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, Long.MAX_VALUE
+    };
+
+    private final ConcurrentMap<String, Stats> statsByFingerprint = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> fingerprintBySql = new ConcurrentHashMap<>();
+    private final Histogram poolWait = new Histogram();
+
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+    private final int maxFingerprints;
+
+    public SqlProfiler(long slowThresholdMs, double slowSampleRate, int maxFingerprints) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowSampleRate = slowSampleRate;
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param sql          Raw SQL text
+     * @param elapsedNanos Execution time
+     * @param rows         Rows affected, or 0 for queries (read rows are added by {@link #recordRows})
+     * @param failed       Whether the statement threw
+     */
+    public void recordExecution(String sql, long elapsedNanos, long rows, boolean failed) {
+        Stats stats = statsFor(sql);
+        stats.calls.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulate(elapsedNanos);
+        stats.histogram.record(elapsedNanos);
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+        if (failed) {
+            stats.errors.increment();
+        }
+
+        if (elapsedNanos >= slowThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+            SLOW_LOG.warn("Slow SQL ({} ms): {} | fingerprint: {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), abbreviate(sql), fingerprint(sql));
+        }
+    }
+
+    /**
+     * Adds rows read from a result set of the statement.
+     */
+    public void recordRows(String sql, long rows) {
+        if (rows > 0) {
+            statsFor(sql).rows.add(rows);
+        }
+    }
+
+    /**
+     * Records the time spent waiting for a pooled connection.
+     */
+    public void recordPoolWait(long elapsedNanos) {
+        poolWait.record(elapsedNanos);
+    }
+
+    /**
+     * Returns the statements with the highest value of the given metric.
+     *
+     * @param limit   Maximum number of entries
+     * @param orderBy totalTime, calls, mean, p99 or rows
+     */
+    public List<SqlStatementStats> top(int limit, String orderBy) {
+        Comparator<SqlStatementStats> comparator = switch (orderBy) {
+            case "calls" -> Comparator.comparingLong(SqlStatementStats::getCalls);
+            case "mean" -> Comparator.comparingDouble(SqlStatementStats::getMeanMs);
+            case "p99" -> Comparator.comparingDouble(SqlStatementStats::getP99Ms);
+            case "rows" -> Comparator.comparingLong(SqlStatementStats::getRows);
+            default -> Comparator.comparingDouble(SqlStatementStats::getTotalMs);
+        };
+        return statsByFingerprint.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(comparator.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Approximate pool wait time percentile in milliseconds.
+     */
+    public double poolWaitPercentileMs(double percentile) {
+        return poolWait.percentileMs(percentile);
+    }
+
+    public long poolWaitCount() {
+        return poolWait.count();
+    }
+
+    public void reset() {
+        statsByFingerprint.clear();
+    }
+
+    private Stats statsFor(String sql) {
+        String fingerprint = fingerprint(sql);
+        Stats stats = statsByFingerprint.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        if (statsByFingerprint.size() >= maxFingerprints) {
+            fingerprint = OVERFLOW_FINGERPRINT;
+        }
+        return statsByFingerprint.computeIfAbsent(fingerprint, key -> new Stats());
+    }
+
+    private String fingerprint(String sql) {
+        String fingerprint = fingerprintBySql.get(sql);
+        if (fingerprint == null) {
+            if (fingerprintBySql.size() >= MAX_CACHED_SQL) {
+                // Mostly one-off literal variants; drop them rather than tracking recency
+                fingerprintBySql.clear();
+            }
+            fingerprint = SqlFingerprint.of(sql);
+            fingerprintBySql.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static String abbreviate(String sql) {
+        String singleLine = sql.replaceAll("\\s+", " ").trim();
+        return singleLine.length() > 2000 ? singleLine.substring(0, 2000) + "..." : singleLine;
+    }
+
+    private static final class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final Histogram histogram = new Histogram();
+
+        private SqlStatementStats snapshot(String fingerprint) {
+            long callCount = calls.sum();
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            double maxMs = maxNanos.get() / 1_000_000.0;
+            return new SqlStatementStats(
+                    fingerprint,
+                    callCount,
+                    errors.sum(),
+                    rows.sum(),
+                    totalMs,
+                    callCount == 0 ? 0 : totalMs / callCount,
+                    Math.min(histogram.percentileMs(0.50), maxMs),
+                    Math.min(histogram.percentileMs(0.95), maxMs),
+                    Math.min(histogram.percentileMs(0.99), maxMs),
+                    maxMs);
+        }
+    }
+
+    /**
+     * Fixed-bucket latency histogram; percentiles are reported as the upper bound of the matching bucket.
+     */
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length];
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            int i = 0;
+            while (micros > BUCKET_BOUNDS_MICROS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+        }
+
+        private long count() {
+            long total = 0;
+            for (LongAdder bucket : buckets) {
+                total += bucket.sum();
+            }
+            return total;
+        }
+
+        private double percentileMs(double percentile) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // The open-ended last bucket reports the previous bound
+                    int boundIndex = i == counts.length - 1 ? i - 1 : i;
+                    return BUCKET_BOUNDS_MICROS[boundIndex] / 1000.0;
+                }
+            }
+            return BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 2] / 1000.0;
+        }
+    }
+}
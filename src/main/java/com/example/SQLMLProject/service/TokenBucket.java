@@ -0,0 +1,75 @@
+package com.example.SQLMLProject.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket. State is swapped atomically, so concurrent callers never block each other.
+ * {@link #consume(double)} may drive the balance negative to charge costs only known after the fact;
+ * the debt is paid back by refill before new requests are admitted.
+ */
+class TokenBucket {
+
+    private record State(double tokens, long timestamp) {
+    }
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+
+    TokenBucket(double capacity, double refillPerMinute) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+    }
+
+    /**
+     * Takes the given amount only if it is fully available.
+     */
+    boolean tryConsume(double amount) {
+        while (true) {
+            State current = state.get();
+            State refilled = refill(current, System.nanoTime());
+            if (refilled.tokens() < amount) {
+                return false;
+            }
+            if (state.compareAndSet(current, new State(refilled.tokens() - amount, refilled.timestamp()))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes the given amount unconditionally (negative amounts give tokens back, up to capacity).
+     */
+    void consume(double amount) {
+        while (true) {
+            State current = state.get();
+            State refilled = refill(current, System.nanoTime());
+            double tokens = Math.min(capacity, refilled.tokens() - amount);
+            if (state.compareAndSet(current, new State(tokens, refilled.timestamp()))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until at least the given amount is available (0 if it already is).
+     */
+    long nanosUntilAvailable(double amount) {
+        double tokens = refill(state.get(), System.nanoTime()).tokens();
+        return tokens >= amount ? 0 : (long) Math.ceil((amount - tokens) / refillPerNano);
+    }
+
+    boolean isFull() {
+        return refill(state.get(), System.nanoTime()).tokens() >= capacity;
+    }
+
+    private State refill(State current, long now) {
+        long elapsed = now - current.timestamp();
+        if (elapsed <= 0) {
+            return current;
+        }
+        return new State(Math.min(capacity, current.tokens() + elapsed * refillPerNano), now);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.SQLMLProject.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A set of known slot values compiled into a single pattern.
+ * Built once per vocabulary load, so matching a question is one regex scan however many values there are.
+ */
+public final class VocabularyTerms {
+
+    private static final VocabularyTerms EMPTY = new VocabularyTerms(null, Map.of());
+
+    private final Pattern pattern;
+    private final Map<String, String> valuesByLowerCase;
+
+    private VocabularyTerms(Pattern pattern, Map<String, String> valuesByLowerCase) {
+        this.pattern = pattern;
+        this.valuesByLowerCase = valuesByLowerCase;
+    }
+
+    /**
+     * Compiles the values into one alternation, longest first so "San Jose" wins over a shorter overlapping value.
+     *
+     * @param values Values as stored in the database
+     * @param suffix Regex suffix allowed after a value, e.g. "s?" for plurals
+     */
+    public static VocabularyTerms of(List<String> values, String suffix) {
+        Map<String, String> valuesByLowerCase = new HashMap<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                valuesByLowerCase.putIfAbsent(value.toLowerCase(), value);
+            }
+        }
+        if (valuesByLowerCase.isEmpty()) {
+            return EMPTY;
+        }
+        String alternation = valuesByLowerCase.keySet().stream()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|"));
+        return new VocabularyTerms(Pattern.compile("(?<=\\s)(" + alternation + ")" + suffix + "(?=\\s)"), valuesByLowerCase);
+    }
+
+    /**
+     * Removes every known value from the text and collects the matched values.
+     *
+     * @param text  Normalized, lower-cased question padded with spaces
+     * @param found Receives each distinct value in its database spelling
+     * @return Text with the values replaced by spaces
+     */
+    public String extract(String text, List<String> found) {
+        if (pattern == null) {
+            return text;
+        }
+        Matcher matcher = pattern.matcher(text);
+        StringBuilder remaining = new StringBuilder();
+        while (matcher.find()) {
+            String value = valuesByLowerCase.get(matcher.group(1));
+            if (!found.contains(value)) {
+                found.add(value);
+            }
+            matcher.appendReplacement(remaining, " ");
+        }
+        matcher.appendTail(remaining);
+        return remaining.toString();
+    }
+}
@@ -26,16 +26,35 @@ CREATE TABLE Customer (
     city VARCHAR(50)
 );
 
--- Create Sale table
+-- Create Sale table, range-partitioned by month on sale_date so date-range queries
+-- only touch the matching partitions (the partition key must be part of the primary key)
 CREATE TABLE Sale (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     car_id INT NOT NULL REFERENCES Car(id),
     customer_id INT NOT NULL REFERENCES Customer(id),
     sale_date DATE NOT NULL,
-    sale_price DECIMAL(10, 2) NOT NULL
-);
+    sale_price DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (id, sale_date)
+) PARTITION BY RANGE (sale_date);
+
+-- Monthly partitions from the oldest sample data through three months ahead.
+-- SalePartitionService keeps creating upcoming months and archives expired ones.
+-- There is deliberately no DEFAULT partition: it would stop newest-first ordered scans.
+DO $$
+DECLARE
+    month_start DATE := DATE '2023-01-01';
+BEGIN
+    WHILE month_start <= date_trunc('month', CURRENT_DATE) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF Sale FOR VALUES FROM (%L) TO (%L)',
+                       'sale_' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END;
+$$;
 
--- Create indexes for better query performance
+-- Create indexes for better query performance (indexes on Sale are created on every partition)
 CREATE INDEX idx_car_make ON Car(make);
 CREATE INDEX idx_car_price ON Car(price);
 CREATE INDEX idx_car_year ON Car(year);
@@ -44,3 +63,22 @@ CREATE INDEX idx_customer_city ON Customer(city);
 CREATE INDEX idx_sale_car_id ON Sale(car_id);
 CREATE INDEX idx_sale_customer_id ON Sale(customer_id);
 CREATE INDEX idx_sale_date ON Sale(sale_date);
+
+-- Cross-node cache invalidation: every write to a table sends its name on the
+-- cache_invalidation channel (delivered on commit, duplicates within a transaction are folded)
+CREATE OR REPLACE FUNCTION notify_cache_invalidation() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('cache_invalidation', TG_TABLE_NAME);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER car_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON Car
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation();
+CREATE TRIGGER customer_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON Customer
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation();
+CREATE TRIGGER sale_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON Sale
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation();
@@ -0,0 +1,89 @@
+package com.example.SQLMLProject.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApproximateQueryServiceTest {
+
+    private static ApproximateQueryService service(String method) {
+        // Every table looks like ten million rows
+        ApproximateQueryService service = new ApproximateQueryService(new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                return (T) Long.valueOf(10_000_000L);
+            }
+        });
+        ReflectionTestUtils.setField(service, "samplingMethod", method);
+        ReflectionTestUtils.setField(service, "targetSampleRows", 100_000L);
+        ReflectionTestUtils.setField(service, "minTableRows", 1_000_000L);
+        ReflectionTestUtils.setField(service, "sampledTables", List.of("sale", "car", "customer"));
+        return service;
+    }
+
+    @Test
+    void bernoulliSampleReportsBounds() {
+        ApproximateQueryService service = service("BERNOULLI");
+        Optional<ApproximateQueryService.SampledQuery> sampled =
+                service.rewrite("SELECT COUNT(*) AS sales FROM Sale s");
+
+        assertTrue(sampled.isPresent());
+        assertTrue(sampled.get().errorBounded());
+        assertEquals("SELECT COUNT(*) AS sales FROM Sale s TABLESAMPLE BERNOULLI (1.0000)", sampled.get().sql());
+
+        List<Map<String, Object>> rows = List.of(new HashMap<>(Map.of("sales", 1000L)));
+        List<Map<String, Double>> bounds = service.estimate(sampled.get(), rows);
+        assertEquals(100_000L, rows.get(0).get("sales"));
+        assertNotNull(bounds);
+        assertTrue(bounds.get(0).get("sales") > 0);
+    }
+
+    @Test
+    void systemSampleIsScaledWithoutBounds() {
+        ApproximateQueryService service = service("SYSTEM");
+        Optional<ApproximateQueryService.SampledQuery> sampled =
+                service.rewrite("SELECT SUM(sale_price) AS revenue FROM Sale");
+
+        assertTrue(sampled.isPresent());
+        assertFalse(sampled.get().errorBounded());
+        assertEquals("SELECT SUM(sale_price) AS revenue FROM Sale TABLESAMPLE SYSTEM (1.0000)", sampled.get().sql());
+
+        List<Map<String, Object>> rows = List.of(new HashMap<>(Map.of("revenue", 2.5)));
+        assertNull(service.estimate(sampled.get(), rows));
+        assertEquals(250.0, rows.get(0).get("revenue"));
+    }
+
+    @Test
+    void nullableSideOfOuterJoinRunsExactly() {
+        ApproximateQueryService service = service("BERNOULLI");
+
+        // No rewrite means the query runs exactly and the response reports "approximate": false;
+        // sampling the preserved dimension table instead would be a cluster sample of sales
+        assertTrue(service.rewrite(
+                "SELECT cu.city, COUNT(s.id) FROM Customer cu LEFT JOIN Sale s ON s.customer_id = cu.id GROUP BY cu.city")
+                .isEmpty());
+        assertTrue(service.rewrite("SELECT COUNT(*) FROM Sale s RIGHT JOIN Car c ON s.car_id = c.id").isEmpty());
+        assertTrue(service.rewrite("SELECT COUNT(*) FROM Sale s FULL OUTER JOIN Car c ON s.car_id = c.id").isEmpty());
+    }
+
+    @Test
+    void preservedSideOfOuterJoinIsSampled() {
+        Optional<ApproximateQueryService.SampledQuery> sampled = service("BERNOULLI").rewrite(
+                "SELECT cu.city, COUNT(*) FROM Sale s LEFT JOIN Customer cu ON s.customer_id = cu.id GROUP BY cu.city");
+
+        assertTrue(sampled.isPresent());
+        assertTrue(sampled.get().sql().contains("FROM Sale s TABLESAMPLE BERNOULLI (1.0000) LEFT JOIN Customer cu"));
+    }
+}
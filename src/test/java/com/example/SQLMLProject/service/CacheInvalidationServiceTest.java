@@ -0,0 +1,171 @@
+package com.example.SQLMLProject.service;
+
+import com.example.SQLMLProject.SqlmlProjectApplication;
+import com.example.SQLMLProject.config.CacheConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of notification coalescing and the table-to-cache mapping, plus tests that run two application
+ * contexts ("nodes") against a local PostgreSQL with the car_dealer schema and check that a write through one
+ * node evicts the caches of the other.
+ * The two-node tests are enabled by pointing TEST_DATABASE_URL at the database, e.g.
+ * jdbc:postgresql://localhost:5432/car_dealer (TEST_DATABASE_USERNAME and TEST_DATABASE_PASSWORD default to postgres).
+ */
+class CacheInvalidationServiceTest {
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @Test
+    void burstIsEvictedOnceWhenWindowCloses() {
+        CacheInvalidationService.NotificationCoalescer coalescer = new CacheInvalidationService.NotificationCoalescer(20);
+
+        coalescer.add(List.of("Car"), 1_000);
+        coalescer.add(List.of("car", "customer"), 1_015);
+        assertEquals(5, coalescer.pollTimeout(1_015, 500));
+        assertEquals(Set.of(), coalescer.drainDue(1_019));
+
+        assertEquals(Set.of("car", "customer"), coalescer.drainDue(1_020));
+        assertEquals(Set.of(), coalescer.drainDue(1_100));
+        assertEquals(500, coalescer.pollTimeout(1_100, 500));
+    }
+
+    @Test
+    void windowIsNotExtendedByLaterNotifications() {
+        CacheInvalidationService.NotificationCoalescer coalescer = new CacheInvalidationService.NotificationCoalescer(20);
+
+        coalescer.add(List.of("sale"), 1_000);
+        coalescer.add(List.of("sale"), 1_019);
+
+        assertEquals(Set.of("sale"), coalescer.drainDue(1_020));
+        coalescer.add(List.of(), 1_030);
+        assertEquals(Set.of(), coalescer.drainDue(2_000));
+    }
+
+    @Test
+    void tablesMapToTheirCachesAndRegions() {
+        CacheInvalidationService.Invalidation invalidation = CacheInvalidationService.invalidationFor(Set.of("car", "sale"));
+
+        assertEquals(Set.of(CacheConfig.DASHBOARD_STATS, CacheConfig.CAR_MAKES), invalidation.cacheNames());
+        assertEquals(Set.of(CacheConfig.CAR_REGION, CacheConfig.CAR_QUERIES_REGION), invalidation.regions());
+
+        CacheInvalidationService.Invalidation unrelated = CacheInvalidationService.invalidationFor(Set.of("audit_log"));
+        assertTrue(unrelated.cacheNames().isEmpty());
+        assertTrue(unrelated.regions().isEmpty());
+    }
+
+    /**
+     * Starts both nodes on first use, so the unit tests above run without a database.
+     */
+    private static synchronized void startNodes() {
+        if (nodeA != null) {
+            return;
+        }
+        nodeA = startNode();
+        nodeB = startNode();
+        // Each listener evicts everything when it connects, so wait until both are listening before warming caches
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        awaitTrue(() -> {
+            Integer listeners = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_stat_activity WHERE datname = current_database() AND query ILIKE 'LISTEN %'",
+                    Integer.class);
+            return listeners != null && listeners >= 2;
+        });
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+    void triggerOnWriteEvictsOtherNode() {
+        startNodes();
+        Cache makes = warmCarMakes(nodeB);
+
+        nodeA.getBean(JdbcTemplate.class).update("UPDATE Car SET mileage = mileage WHERE id = (SELECT MIN(id) FROM Car)");
+
+        awaitTrue(() -> makes.get(SimpleKey.EMPTY) == null);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+    void publishEvictsEveryNode() {
+        startNodes();
+        Cache makesA = warmCarMakes(nodeA);
+        Cache makesB = warmCarMakes(nodeB);
+
+        nodeA.getBean(CacheInvalidationService.class).publish("Car");
+
+        awaitTrue(() -> makesA.get(SimpleKey.EMPTY) == null && makesB.get(SimpleKey.EMPTY) == null);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+    void unrelatedTableKeepsCache() throws InterruptedException {
+        startNodes();
+        Cache makes = warmCarMakes(nodeB);
+
+        nodeA.getBean(CacheInvalidationService.class).publish("customer");
+        Thread.sleep(500);
+
+        assertNotNull(makes.get(SimpleKey.EMPTY));
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(SqlmlProjectApplication.class)
+                .properties(
+                        "spring.datasource.url=" + System.getenv("TEST_DATABASE_URL"),
+                        "spring.datasource.username=" + System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "postgres"),
+                        "spring.datasource.password=" + System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", "postgres"),
+                        "spring.ai.openai.api-key=test",
+                        "server.port=0",
+                        "sale.partitioning.enabled=false")
+                .run();
+    }
+
+    private static Cache warmCarMakes(ConfigurableApplicationContext node) {
+        node.getBean(IntentVocabulary.class).getMakes();
+        Cache makes = node.getBean(CacheManager.class).getCache(CacheConfig.CAR_MAKES);
+        assertNotNull(makes);
+        assertNotNull(makes.get(SimpleKey.EMPTY));
+        return makes;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not met within " + TIMEOUT_MS + " ms");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.SQLMLProject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentMatcherTest {
+
+    private final IntentMatcher matcher = new IntentMatcher(new IntentVocabulary(null) {
+        @Override
+        public VocabularyTerms getMakes() {
+            return VocabularyTerms.of(List.of("Toyota", "Honda", "Ford"), "s?");
+        }
+
+        @Override
+        public VocabularyTerms getCities() {
+            return VocabularyTerms.of(List.of("New York", "San Jose", "San Francisco"), "");
+        }
+    });
+
+    @Test
+    void atLeastPriceIsInclusive() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price >= 30000 ORDER BY price"),
+                matcher.match("cars at least $30,000"));
+    }
+
+    @Test
+    void upToAndAtMostPriceAreInclusive() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price <= 25000 ORDER BY price"),
+                matcher.match("cars up to $25,000"));
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price <= 25000 ORDER BY price"),
+                matcher.match("cars at most 25k"));
+    }
+
+    @Test
+    void noMoreThanIsNotReadAsMoreThan() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price <= 25000 ORDER BY price"),
+                matcher.match("cars no more than $25,000"));
+    }
+
+    @Test
+    void underAndOverPriceAreExclusive() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price < 25000 ORDER BY price"),
+                matcher.match("Show me all cars under $25,000"));
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price > 50000 ORDER BY price"),
+                matcher.match("cars over 50k"));
+    }
+
+    @Test
+    void priceRangeIsInclusive() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE price BETWEEN 30000 AND 50000 ORDER BY price"),
+                matcher.match("List cars with price between $30,000 and $50,000"));
+    }
+
+    @Test
+    void mileageAtLeastAndAtMostAreInclusive() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE mileage >= 30000 ORDER BY price"),
+                matcher.match("cars with at least 30,000 miles"));
+        assertEquals(Optional.of("SELECT * FROM Car WHERE mileage <= 10000 ORDER BY price"),
+                matcher.match("cars with at most 10k miles"));
+        assertEquals(Optional.of("SELECT * FROM Car WHERE mileage > 30000 ORDER BY price"),
+                matcher.match("cars with over 30,000 miles"));
+    }
+
+    @Test
+    void disjunctionOfBoundsFallsThrough() {
+        assertTrue(matcher.match("cars under $20,000 or over $50,000").isEmpty());
+        assertTrue(matcher.match("Toyota or Honda cars under 20k").isEmpty());
+    }
+
+    @Test
+    void disjunctionAcrossSlotsFallsThrough() {
+        assertTrue(matcher.match("Toyota or available cars").isEmpty());
+        assertTrue(matcher.match("sold cars or Toyotas").isEmpty());
+        assertTrue(matcher.match("Toyota or cars").isEmpty());
+    }
+
+    @Test
+    void quantityIsNotFiller() {
+        assertTrue(matcher.match("show me one Toyota").isEmpty());
+    }
+
+    @Test
+    void disjunctionOfValuesIsMatched() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE make IN ('Toyota', 'Honda') ORDER BY price"),
+                matcher.match("Toyota or Honda cars"));
+        assertEquals(Optional.of("SELECT * FROM Car WHERE status IN ('available', 'reserved') ORDER BY price"),
+                matcher.match("available or reserved cars"));
+    }
+
+    @Test
+    void longestCityWins() {
+        assertEquals(Optional.of("SELECT * FROM Customer WHERE city IN ('San Jose', 'New York') ORDER BY name"),
+                matcher.match("customers in San Jose and New York"));
+    }
+
+    @Test
+    void pluralMakeIsMatched() {
+        assertEquals(Optional.of("SELECT * FROM Car WHERE make = 'Toyota' AND status = 'available' ORDER BY price"),
+                matcher.match("available Toyotas"));
+    }
+}
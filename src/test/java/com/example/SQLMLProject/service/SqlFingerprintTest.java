@@ -0,0 +1,63 @@
+package com.example.SQLMLProject.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlFingerprintTest {
+
+    @Test
+    void literalVariantsShareAFingerprint() {
+        assertEquals("select * from car where make = ? and price < ?",
+                SqlFingerprint.of("SELECT * FROM Car WHERE make = 'Toyota' AND price < 25000"));
+        assertEquals(SqlFingerprint.of("SELECT * FROM Car WHERE make = 'Toyota'"),
+                SqlFingerprint.of("select *\n  from Car where make = 'Honda' -- filter"));
+    }
+
+    @Test
+    void inListsOfAnyLengthCollapse() {
+        assertEquals("select * from car where make in (?, ...)",
+                SqlFingerprint.of("SELECT * FROM Car WHERE make IN ('Toyota')"));
+        assertEquals("select * from car where make in (?, ...)",
+                SqlFingerprint.of("SELECT * FROM Car WHERE make IN ('Toyota', 'Honda', 'Ford')"));
+    }
+
+    @Test
+    void jdbcAndPositionalPlaceholdersAreKept() {
+        assertEquals("select c1_0.id from car c1_0 where c1_0.make=? and c1_0.id in (?, ...)",
+                SqlFingerprint.of("select c1_0.id from car c1_0 where c1_0.make=? and c1_0.id in (?,?,?)"));
+        assertEquals("select * from car where id = ?", SqlFingerprint.of("SELECT * FROM Car WHERE id = $1"));
+    }
+
+    @Test
+    void typedLiteralsAreNormalized() {
+        assertEquals("select * from sale where sale_date > now() - interval ?",
+                SqlFingerprint.of("SELECT * FROM Sale WHERE sale_date > NOW() - INTERVAL '7 days'"));
+        assertEquals(SqlFingerprint.of("SELECT * FROM Sale WHERE sale_date >= DATE '2024-01-01'"),
+                SqlFingerprint.of("SELECT * FROM Sale WHERE sale_date >= DATE '2025-06-30'"));
+    }
+
+    @Test
+    void selectListAndArithmeticConstantsAreNormalized() {
+        assertEquals("select ? as source, price * ? from car",
+                SqlFingerprint.of("SELECT 'web' AS source, price * 1.2 FROM Car"));
+        assertEquals(SqlFingerprint.of("SELECT price - 500 FROM Car"), SqlFingerprint.of("SELECT price - 1000 FROM Car"));
+        assertEquals("select date_trunc(?, sale_date) from sale group by ?",
+                SqlFingerprint.of("SELECT DATE_TRUNC('month', sale_date) FROM Sale GROUP BY 1"));
+    }
+
+    @Test
+    void identifiersWithDigitsAreKept() {
+        assertEquals("select c1_0.id, \"col2\" from car c1_0", SqlFingerprint.of("SELECT c1_0.id, \"Col2\" FROM Car c1_0"));
+    }
+
+    @Test
+    void dollarQuotedStringsAreNormalized() {
+        assertEquals("select ?, ?", SqlFingerprint.of("SELECT   $$a b$$, $tag$it's$tag$"));
+    }
+
+    @Test
+    void malformedSqlFallsBackToItsText() {
+        assertEquals("select 'open", SqlFingerprint.of("SELECT   'open"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.SQLMLProject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SqlParameterizerTest {
+
+    @Test
+    void comparisonLiteralsBecomeParameters() {
+        SqlParameterizer.ParameterizedSql parameterized =
+                SqlParameterizer.parameterize("SELECT * FROM Car WHERE make = 'Toyota' AND price < 25000");
+
+        assertEquals("SELECT * FROM Car WHERE make = ? AND price < ?", parameterized.shape());
+        assertEquals(List.of("Toyota", 25000), parameterized.parameters());
+    }
+
+    @Test
+    void literalVariantsShareAShape() {
+        assertEquals(
+                SqlParameterizer.parameterize("SELECT * FROM Car WHERE price > 30000 LIMIT 10").shape(),
+                SqlParameterizer.parameterize("SELECT * FROM Car  WHERE price > 45000.50 LIMIT 5").shape());
+    }
+
+    @Test
+    void inListBetweenAndLikeAreParameterized() {
+        SqlParameterizer.ParameterizedSql parameterized = SqlParameterizer.parameterize(
+                "SELECT * FROM Car WHERE make IN ('Toyota', 'Honda') AND price BETWEEN 20000 AND 30000.5 AND model LIKE 'C%'");
+
+        assertEquals("SELECT * FROM Car WHERE make IN (?, ?) AND price BETWEEN ? AND ? AND model LIKE ?",
+                parameterized.shape());
+        assertEquals(List.of("Toyota", "Honda", 20000, new BigDecimal("30000.5"), "C%"), parameterized.parameters());
+    }
+
+    @Test
+    void structuralLiteralsAreKept() {
+        SqlParameterizer.ParameterizedSql parameterized = SqlParameterizer.parameterize(
+                "SELECT DATE_TRUNC('month', sale_date), SUM(sale_price) FROM Sale "
+                        + "WHERE sale_date > NOW() - INTERVAL '1 year' GROUP BY 1 ORDER BY 1");
+
+        assertEquals("SELECT DATE_TRUNC('month', sale_date), SUM(sale_price) FROM Sale "
+                + "WHERE sale_date > NOW() - INTERVAL '1 year' GROUP BY 1 ORDER BY 1", parameterized.shape());
+        assertEquals(List.of(), parameterized.parameters());
+    }
+
+    @Test
+    void whitespaceCommentsAndSemicolonsAreNormalized() {
+        SqlParameterizer.ParameterizedSql parameterized = SqlParameterizer.parameterize(
+                "SELECT *\n  FROM Customer -- all\n WHERE city = 'O''Fallon' /* escaped */;");
+
+        assertEquals("SELECT * FROM Customer WHERE city = ?", parameterized.shape());
+        assertEquals(List.of("O'Fallon"), parameterized.parameters());
+    }
+
+    @Test
+    void placeholdersAndUnterminatedLiteralsAreNotParameterized() {
+        assertNull(SqlParameterizer.parameterize("SELECT * FROM Car WHERE price < ?"));
+        assertNull(SqlParameterizer.parameterize("SELECT $$x$$"));
+        assertNull(SqlParameterizer.parameterize("SELECT * FROM Car WHERE make = 'Toyota"));
+    }
+}